@@ -0,0 +1,115 @@
+package com.dataflowdeveloper.processors.convertjsontoddl.benchmarks;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.sql.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.dataflowdeveloper.processors.convertjsontoddl.ColumnState;
+import com.dataflowdeveloper.processors.convertjsontoddl.DateScanner;
+import com.dataflowdeveloper.processors.convertjsontoddl.DateValidator;
+import com.dataflowdeveloper.processors.convertjsontoddl.JsonToDDLProcessor;
+
+/**
+ * Date classification of string values, the exception driven chain of parsers used before
+ * against the single pass DateScanner. Plain strings are the common case and the one where
+ * the chain throws at every step.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateClassificationBenchmark {
+
+    private static final String[] DATES = {"2018-01-23", "2018-01-23T10:15:30Z", "23/01/2018",
+        "01/23/2018 10:15:30", "Tue, 23 Jan 2018 10:15:30 +0000"};
+    private static final String[] STRINGS = {"Brett", "Lee", "nifi-convertjsontoddl", "M",
+        "4 Privet Drive, Little Whinging"};
+
+    @Param({"dates", "strings"})
+    public String values;
+
+    private String[] text;
+    private char[][] chars;
+
+    @Setup
+    public void setup() {
+        text = "dates".equals(values) ? DATES : STRINGS;
+        chars = new char[text.length][];
+        for (int i = 0; i < text.length; i++) {
+            chars[i] = text[i].toCharArray();
+        }
+    }
+
+    /**
+     * before: Date.valueOf, DateValidator and three SimpleDateFormat parses, failing by exception
+     */
+    @Benchmark
+    public void exceptionChain(Blackhole blackhole) {
+        for (String value : text) {
+            blackhole.consume(chain(value));
+        }
+    }
+
+    /**
+     * after: one pass over the chars
+     */
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        for (char[] value : chars) {
+            blackhole.consume(DateScanner.classify(value, 0, value.length));
+        }
+    }
+
+    private static int chain(String text) {
+        try {
+            Date.valueOf(text);
+            return ColumnState.DATE;
+        } catch (IllegalArgumentException e) {
+            // not an sql date
+        }
+
+        DateValidator dateVal = new DateValidator();
+
+        if (dateVal.validate(text)) {
+            return ColumnState.DATETIME;
+        } else if (JsonToDDLProcessor.isValidRFC822DateTime(text)) {
+            return ColumnState.DATETIME;
+        } else if (JsonToDDLProcessor.isValidDateTime(text)) {
+            return ColumnState.DATETIME;
+        } else if (JsonToDDLProcessor.isValidDate(text)) {
+            return ColumnState.DATE;
+        }
+        return ColumnState.NONE;
+    }
+}
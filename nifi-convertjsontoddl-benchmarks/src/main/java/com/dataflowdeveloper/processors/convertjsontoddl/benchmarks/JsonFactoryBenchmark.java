@@ -0,0 +1,98 @@
+package com.dataflowdeveloper.processors.convertjsontoddl.benchmarks;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.dataflowdeveloper.processors.convertjsontoddl.ColumnState;
+import com.dataflowdeveloper.processors.convertjsontoddl.JsonSchemaInferrer;
+import com.dataflowdeveloper.processors.convertjsontoddl.JsonToDDLProcessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Per document cost of building the Jackson objects on every call, as parse() used to,
+ * against reusing one configured JsonFactory. Small documents are where construction dominates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonFactoryBenchmark {
+
+    private static final String SMALL = "{\"EMP_ID\":4001,\"GENDER\": \"M\",\"DEPT_ID\":4, \"FIRST_NAME\":\"Brett\","
+            + "\"LAST_NAME\" :\"Lee\",\"TOTAL_SPENT\": 141.12}";
+
+    private final JsonFactory shared = JsonToDDLProcessor.newJsonFactory(false, true);
+
+    /**
+     * before: new JsonFactory and ObjectMapper per document, then readTree
+     */
+    @Benchmark
+    public void perCallObjectMapper(Blackhole blackhole) throws IOException {
+        final JsonFactory factory = new JsonFactory();
+        final ObjectMapper mapper = new ObjectMapper(factory);
+        final JsonNode rootNode = mapper.readTree(SMALL);
+        final Iterator<Map.Entry<String, JsonNode>> fields = rootNode.fields();
+        while (fields.hasNext()) {
+            blackhole.consume(fields.next().getValue().asText());
+        }
+    }
+
+    /**
+     * new JsonFactory per document feeding the streaming inferrer
+     */
+    @Benchmark
+    public void perCallFactory(Blackhole blackhole) throws IOException {
+        infer(new JsonFactory(), blackhole);
+    }
+
+    /**
+     * after: one shared JsonFactory feeding the streaming inferrer
+     */
+    @Benchmark
+    public void sharedFactory(Blackhole blackhole) throws IOException {
+        infer(shared, blackhole);
+    }
+
+    private static void infer(JsonFactory factory, Blackhole blackhole) throws IOException {
+        try (JsonParser parser = factory.createParser(SMALL)) {
+            for (ColumnState column : new JsonSchemaInferrer().infer(parser)) {
+                blackhole.consume(column.getType());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dataflowdeveloper.processors.convertjsontoddl.benchmarks;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dataflowdeveloper.processors.convertjsontoddl.JsonToDDLProcessor;
+import com.dataflowdeveloper.processors.convertjsontoddl.MappedInputStream;
+
+/**
+ * parse() of newline-delimited JSON files of 1GB and 10GB in all-records mode, read through a
+ * buffered FileInputStream as the content repository hands it over, or through MappedInputStream
+ * as a processor reading local files would. Each run reads the whole file once, divide the size by the time
+ * for the throughput. The file is generated in java.io.tmpdir, which needs room for it.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedInputBenchmark {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    @Param({"1024", "10240"})
+    public long megabytes;
+
+    private JsonToDDLProcessor processor;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(JsonToDDLProcessor.class);
+        runner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+        runner.run(1, false, true);
+        processor = (JsonToDDLProcessor) runner.getProcessor();
+
+        file = File.createTempFile("mapped-input-", ".json");
+        write(file, megabytes * MEGABYTE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public String streamed() throws IOException {
+        return processor.parse("records", new BufferedInputStream(new FileInputStream(file)), "hive", null);
+    }
+
+    @Benchmark
+    public String mapped() throws IOException {
+        return processor.parse("records", new MappedInputStream(file), "hive", null);
+    }
+
+    /**
+     * repeat a block of medium records, one per line, until the file holds at least size bytes
+     */
+    private static void write(File file, long size) throws IOException {
+        final String records = SyntheticData.records(1000, 20, SyntheticData.MIXED_VALUES);
+        final byte[] block = (records.substring(1, records.length() - 1).replace(",\n", "\n") + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 1024 * 1024)) {
+            for (long written = 0; written < size; written += block.length) {
+                out.write(block);
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.dataflowdeveloper.processors.convertjsontoddl.benchmarks;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dataflowdeveloper.processors.convertjsontoddl.JsonToDDLProcessor;
+
+/**
+ * Full onTrigger through the NiFi mock framework, per FlowFile. Each invocation queues one
+ * batch and triggers once, so session handling and commit are part of the measurement.
+ * The mock session is far slower than a real repository, compare results only with each other.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OnTriggerBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({SyntheticData.SMALL, SyntheticData.MEDIUM})
+    public String dataset;
+
+    @Param({JsonToDDLProcessor.MODE_FIRST_OBJECT, JsonToDDLProcessor.MODE_ALL_RECORDS})
+    public String mode;
+
+    private TestRunner runner;
+    private byte[] content;
+
+    @Setup
+    public void setup() {
+        runner = TestRunners.newTestRunner(JsonToDDLProcessor.class);
+        runner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, dataset);
+        runner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+        runner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, mode);
+        runner.setProperty(JsonToDDLProcessor.FIELD_BATCH_SIZE, String.valueOf(BATCH));
+        runner.run(1, false, true);
+
+        content = SyntheticData.dataset(dataset).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void onTrigger() {
+        for (int i = 0; i < BATCH; i++) {
+            runner.enqueue(content);
+        }
+        runner.run(1, false, false);
+        // keep the transferred FlowFiles from piling up across invocations
+        runner.clearTransferState();
+    }
+}
@@ -0,0 +1,80 @@
+package com.dataflowdeveloper.processors.convertjsontoddl.benchmarks;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dataflowdeveloper.processors.convertjsontoddl.JsonToDDLProcessor;
+
+/**
+ * parse() over the synthetic datasets, with the processor scheduled in all-records mode so
+ * that every record of the medium and huge documents is inferred.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({SyntheticData.SMALL, SyntheticData.MEDIUM, SyntheticData.HUGE, SyntheticData.WIDE,
+        SyntheticData.DATES, SyntheticData.STRINGS})
+    public String dataset;
+
+    private JsonToDDLProcessor processor;
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        final TestRunner runner = TestRunners.newTestRunner(JsonToDDLProcessor.class);
+        runner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+        // nothing is queued, this only runs @OnScheduled
+        runner.run(1, false, true);
+
+        processor = (JsonToDDLProcessor) runner.getProcessor();
+        json = SyntheticData.dataset(dataset);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String parseString() {
+        return processor.parse(dataset, json, "hive", null);
+    }
+
+    @Benchmark
+    public String parseStream() {
+        return processor.parse(dataset, new ByteArrayInputStream(bytes), "hive", null);
+    }
+}
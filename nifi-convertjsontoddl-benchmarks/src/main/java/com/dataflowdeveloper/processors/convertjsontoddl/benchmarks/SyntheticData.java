@@ -0,0 +1,197 @@
+package com.dataflowdeveloper.processors.convertjsontoddl.benchmarks;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Reproducible JSON datasets for the benchmarks. Every generator is seeded, so the same
+ * arguments give the same content on every machine and no dataset has to be downloaded.
+ *
+ * java -cp nifi-convertjsontoddl-benchmarks/target/benchmarks.jar \
+ *     com.dataflowdeveloper.processors.convertjsontoddl.benchmarks.SyntheticData target/datasets
+ */
+public final class SyntheticData {
+
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String HUGE = "huge";
+    public static final String WIDE = "wide";
+    public static final String DATES = "dates";
+    public static final String STRINGS = "strings";
+
+    /** values of every kind */
+    public static final int MIXED_VALUES = 0;
+    /** mostly dates and date-times */
+    public static final int DATE_VALUES = 1;
+    /** mostly plain strings */
+    public static final int STRING_VALUES = 2;
+
+    private static final long SEED = 42L;
+
+    private static final String[] WORDS = {"Brett", "Lee", "nifi", "flow", "Privet Drive", "Little Whinging",
+        "Tesla", "Princeton", "sensor", "temperature", "humidity", "M", "F", "N/A"};
+    private static final String[] DIRT = {" ", "-", ".", ":", "$", "#", "@", "/", "(", ")", "\u00e9"};
+
+    private SyntheticData() {
+    }
+
+    /**
+     * @param name one of SMALL, MEDIUM, HUGE, WIDE, DATES, STRINGS
+     * @return the named dataset
+     */
+    public static String dataset(String name) {
+        if (SMALL.equals(name)) {
+            return records(1, 10, MIXED_VALUES);
+        } else if (MEDIUM.equals(name)) {
+            return records(1000, 20, MIXED_VALUES);
+        } else if (HUGE.equals(name)) {
+            return records(100000, 20, MIXED_VALUES);
+        } else if (WIDE.equals(name)) {
+            return records(1, 10000, MIXED_VALUES);
+        } else if (DATES.equals(name)) {
+            return records(1000, 20, DATE_VALUES);
+        } else if (STRINGS.equals(name)) {
+            return records(1000, 20, STRING_VALUES);
+        }
+        throw new IllegalArgumentException("Unknown dataset " + name);
+    }
+
+    /**
+     * @param records number of objects, a single object is written without the enclosing array
+     * @param fields fields per object
+     * @param values MIXED_VALUES, DATE_VALUES or STRING_VALUES
+     * @return JSON text
+     */
+    public static String records(int records, int fields, int values) {
+        final Random random = new Random(SEED);
+        final StringBuilder json = new StringBuilder(records * fields * 24);
+
+        if (records != 1) {
+            json.append('[');
+        }
+        for (int record = 0; record < records; record++) {
+            if (record > 0) {
+                json.append(",\n");
+            }
+            json.append('{');
+            for (int field = 0; field < fields; field++) {
+                if (field > 0) {
+                    json.append(',');
+                }
+                json.append("\"field_").append(field).append("\":");
+                value(json, random, values, field);
+            }
+            json.append('}');
+        }
+        if (records != 1) {
+            json.append(']');
+        }
+        return json.toString();
+    }
+
+    /**
+     * @param count number of keys
+     * @return field names with punctuation, spaces, leading digits and non ASCII letters
+     */
+    public static String[] dirtyKeys(int count) {
+        final Random random = new Random(SEED);
+        final String[] keys = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            final StringBuilder key = new StringBuilder();
+            if (random.nextInt(4) == 0) {
+                key.append(random.nextInt(10));
+            }
+            final int parts = 1 + random.nextInt(4);
+            for (int part = 0; part < parts; part++) {
+                if (part > 0) {
+                    key.append(DIRT[random.nextInt(DIRT.length)]);
+                }
+                key.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            keys[i] = key.toString();
+        }
+        return keys;
+    }
+
+    private static void value(StringBuilder json, Random random, int values, int field) {
+        final int kind;
+        if (values == DATE_VALUES) {
+            kind = field % 5 == 0 ? random.nextInt(7) : 4 + random.nextInt(2);
+        } else if (values == STRING_VALUES) {
+            kind = field % 5 == 0 ? random.nextInt(7) : 3;
+        } else {
+            kind = field % 7;
+        }
+
+        switch (kind) {
+            case 0:
+                json.append(random.nextInt(100000));
+                break;
+            case 1:
+                json.append(random.nextLong());
+                break;
+            case 2:
+                json.append(random.nextInt(100000) / 100.0);
+                break;
+            case 3:
+                json.append('"').append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+                        .append(WORDS[random.nextInt(WORDS.length)]).append('"');
+                break;
+            case 4:
+                json.append(String.format("\"%04d-%02d-%02d\"", 1970 + random.nextInt(50),
+                        1 + random.nextInt(12), 1 + random.nextInt(28)));
+                break;
+            case 5:
+                json.append(String.format("\"%04d-%02d-%02dT%02d:%02d:%02dZ\"", 1970 + random.nextInt(50),
+                        1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24),
+                        random.nextInt(60), random.nextInt(60)));
+                break;
+            default:
+                json.append(random.nextBoolean());
+                break;
+        }
+    }
+
+    /**
+     * write every dataset to a directory
+     *
+     * @param args target directory, target/datasets by default
+     * @throws IOException when a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        final File directory = new File(args.length > 0 ? args[0] : "target/datasets");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        for (String name : new String[] {SMALL, MEDIUM, HUGE, WIDE, DATES, STRINGS}) {
+            final File file = new File(directory, name + ".json");
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                writer.write(dataset(name));
+            }
+            System.out.println(file + " " + file.length() + " bytes");
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Base dialect driven by a type table indexed by the ColumnState type constants,
+ * built once when the dialect is constructed so columnType is an array lookup.
+ */
+public abstract class AbstractSqlDialect implements SqlDialect {
+
+    /** reserved in SQL:2003 and by every supported database */
+    private static final String[] SQL_RESERVED = {"ALL", "ALTER", "AND", "ANY", "AS", "ASC", "BETWEEN", "BY",
+        "CASE", "CAST", "CHECK", "COLUMN", "CONSTRAINT", "CREATE", "CROSS", "CURRENT", "CURRENT_DATE",
+        "CURRENT_TIME", "CURRENT_TIMESTAMP", "CURRENT_USER", "DEFAULT", "DELETE", "DESC", "DISTINCT", "DROP",
+        "ELSE", "END", "EXISTS", "FALSE", "FETCH", "FOR", "FOREIGN", "FROM", "FULL", "GRANT", "GROUP",
+        "HAVING", "IN", "INNER", "INSERT", "INTERSECT", "INTO", "IS", "JOIN", "LEFT", "LIKE", "NOT", "NULL",
+        "OF", "ON", "OR", "ORDER", "OUTER", "PRIMARY", "REFERENCES", "RIGHT", "SELECT", "SET", "TABLE", "THEN",
+        "TO", "TRUE", "UNION", "UNIQUE", "UPDATE", "USER", "USING", "VALUES", "WHEN", "WHERE", "WITH"};
+
+    private final String name;
+    private final String[] types;
+    private final String varchar;
+    private final int maxVarcharLength;
+    private final String longText;
+    private final char quote;
+    private final int maxIdentifierLength;
+    private final Set<String> reservedWords;
+
+    /**
+     * @param name tableType value
+     * @param types SQL type per ColumnState type constant, VARCHAR and NONE are sized with varchar
+     * @param varchar variable length string type, without the size
+     * @param maxVarcharLength longest varchar, longer columns use longText
+     * @param longText type for strings longer than maxVarcharLength
+     * @param quote identifier quote character
+     * @param maxIdentifierLength longest identifier
+     */
+    protected AbstractSqlDialect(String name, String[] types, String varchar, int maxVarcharLength, String longText,
+            char quote, int maxIdentifierLength) {
+        this(name, types, varchar, maxVarcharLength, longText, quote, maxIdentifierLength, reserved());
+    }
+
+    /**
+     * @param name tableType value
+     * @param types SQL type per ColumnState type constant, VARCHAR and NONE are sized with varchar
+     * @param varchar variable length string type, without the size
+     * @param maxVarcharLength longest varchar, longer columns use longText
+     * @param longText type for strings longer than maxVarcharLength, and for JSON unless types sets one
+     * @param quote identifier quote character
+     * @param maxIdentifierLength longest identifier
+     * @param reservedWords upper case words quoted when used as identifiers, see reserved
+     */
+    protected AbstractSqlDialect(String name, String[] types, String varchar, int maxVarcharLength, String longText,
+            char quote, int maxIdentifierLength, Set<String> reservedWords) {
+        this.name = name;
+        this.types = types;
+        if (types[ColumnState.JSON] == null) {
+            types[ColumnState.JSON] = longText;
+        }
+        this.varchar = varchar + "(";
+        this.maxVarcharLength = maxVarcharLength;
+        this.longText = longText;
+        this.quote = quote;
+        this.maxIdentifierLength = maxIdentifierLength;
+        this.reservedWords = reservedWords;
+    }
+
+    /**
+     * @param charType fixed one character type
+     * @param booleanType boolean type
+     * @param intType 32 bit integer type
+     * @param longType 64 bit integer type
+     * @param decimalType exact decimal type
+     * @param dateType date type
+     * @param dateTimeType date and time type
+     * @return type table indexed by the ColumnState type constants
+     */
+    protected static String[] types(String charType, String booleanType, String intType, String longType,
+            String decimalType, String dateType, String dateTimeType) {
+        final String[] types = new String[ColumnState.JSON + 1];
+        types[ColumnState.CHAR] = charType;
+        types[ColumnState.BOOLEAN] = booleanType;
+        types[ColumnState.INT] = intType;
+        types[ColumnState.LONG] = longType;
+        types[ColumnState.DECIMAL] = decimalType;
+        types[ColumnState.DATE] = dateType;
+        types[ColumnState.DATETIME] = dateTimeType;
+        return types;
+    }
+
+    /**
+     * @param words upper case words reserved by the database on top of the SQL:2003 core
+     * @return reserved word set
+     */
+    protected static Set<String> reserved(String... words) {
+        final Set<String> reserved = new HashSet<String>();
+        Collections.addAll(reserved, SQL_RESERVED);
+        Collections.addAll(reserved, words);
+        return Collections.unmodifiableSet(reserved);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String columnType(ColumnState column) {
+        if (column.getType() == ColumnState.JSON && column.getNestedType() != null) {
+            return complexType(column.getNestedType());
+        } else if (column.getNumericRange() != null && TypeLattice.isNumeric(column.getType())) {
+            return numericType(column.getType(), column.getNumericRange());
+        }
+        return scalarType(column.getType(), column.getMaxLength());
+    }
+
+    /**
+     * @param type INT, LONG or DECIMAL
+     * @param range range, precision and scale of the values
+     * @return narrowest SQL type holding every value of the range
+     */
+    protected String numericType(int type, NumericRange range) {
+        if (type == ColumnState.DECIMAL) {
+            return range.isApproximate() ? doubleType() : decimalType(range.getPrecision(), range.getScale());
+        } else if (range.isShort()) {
+            return smallIntType();
+        }
+        return types[type];
+    }
+
+    /**
+     * @return 16 bit integer type
+     */
+    protected String smallIntType() {
+        return "SMALLINT";
+    }
+
+    /**
+     * @return 64 bit floating point type
+     */
+    protected String doubleType() {
+        return "DOUBLE";
+    }
+
+    /**
+     * @param precision total digits, at most NumericRange.MAX_PRECISION
+     * @param scale digits after the point
+     * @return exact decimal type
+     */
+    protected String decimalType(int precision, int scale) {
+        return "DECIMAL(" + precision + "," + scale + ")";
+    }
+
+    /**
+     * @param type ColumnState type constant
+     * @param maxLength longest value, sizes VARCHAR
+     * @return SQL type
+     */
+    protected String scalarType(int type, int maxLength) {
+        if (type == ColumnState.VARCHAR) {
+            return varchar(maxLength + JsonToDDLProcessor.PADDING_FACTOR);
+        } else if (type == ColumnState.NONE) {
+            return varchar(ColumnState.DEFAULT_VARCHAR_SIZE);
+        }
+        return types[type];
+    }
+
+    /**
+     * @param nested type tree of a column inferred with native complex types
+     * @return SQL type, the JSON type of the dialect unless a subclass maps the tree
+     */
+    protected String complexType(NestedType nested) {
+        return types[ColumnState.JSON];
+    }
+
+    /**
+     * @param nested type tree
+     * @return true for an ARRAY of scalars, the only complex type some databases have
+     */
+    protected static boolean isScalarArray(NestedType nested) {
+        return nested.getKind() == NestedType.ARRAY && nested.getElement() != null
+                && nested.getElement().getKind() == NestedType.SCALAR;
+    }
+
+    private String varchar(int size) {
+        if (size > maxVarcharLength) {
+            return longText;
+        }
+        return varchar + size + ")";
+    }
+
+    @Override
+    public String identifier(String name) {
+        final String identifier = name.length() > maxIdentifierLength ? name.substring(0, maxIdentifierLength) : name;
+        return isPlain(identifier) && !isReserved(identifier) ? identifier : quote + identifier + quote;
+    }
+
+    /**
+     * @param identifier identifier
+     * @return true when the database reserves it as a key word
+     */
+    public boolean isReserved(String identifier) {
+        return reservedWords.contains(identifier.toUpperCase(Locale.ROOT));
+    }
+
+    private static boolean isPlain(String identifier) {
+        if (identifier.isEmpty() || !Character.isLetter(identifier.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < identifier.length(); i++) {
+            final char c = identifier.charAt(i);
+            if (!(c == '_' || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getMaxIdentifierLength() {
+        return maxIdentifierLength;
+    }
+
+    @Override
+    public String primaryKey(String tableName, String columns) {
+        return "CONSTRAINT pk PRIMARY KEY (" + columns + ")";
+    }
+
+    @Override
+    public String foreignKey(String tableName, String columns, String parentTable, String parentColumns) {
+        return "CONSTRAINT " + constraintName("fk_", tableName) + " FOREIGN KEY (" + columns + ") REFERENCES "
+                + identifier(parentTable) + " (" + parentColumns + ")";
+    }
+
+    @Override
+    public String addColumn(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " ADD COLUMN " + column + " " + type;
+    }
+
+    @Override
+    public String alterColumnType(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " ALTER COLUMN " + column + " TYPE " + type;
+    }
+
+    @Override
+    public String dropNotNull(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " ALTER COLUMN " + column + " DROP NOT NULL";
+    }
+
+    /**
+     * @param tableName table the constraint belongs to
+     * @return constraint name unique per table, for databases where constraint names are schema wide
+     */
+    protected String constraintName(String tableName) {
+        return constraintName("pk_", tableName);
+    }
+
+    /**
+     * @param prefix kind of constraint, pk_ or fk_
+     * @param tableName table the constraint belongs to
+     * @return constraint name unique per table and kind, cleaned as a column name is since the
+     * table name defaults to the filename, and quoted when still needed. Every _ separated part
+     * is cleaned on its own, so the separators of child table names are kept
+     */
+    protected String constraintName(String prefix, String tableName) {
+        final StringBuilder name = new StringBuilder(prefix);
+        final String[] parts = (tableName == null ? "" : tableName).split("_", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                name.append('_');
+            }
+            name.append(IdentifierCleaner.clean(parts[i]));
+        }
+        return identifier(name.toString());
+    }
+}
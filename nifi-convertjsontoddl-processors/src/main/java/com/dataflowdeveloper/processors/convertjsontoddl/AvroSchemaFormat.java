@@ -0,0 +1,190 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Avro schema of the document table, the text NiFi record readers and writers take as avro.schema.
+ * Field names are the clean column names, with the raw JSON key as an alias when they differ.
+ * Decimals are doubles, dates use the date and timestamp-millis logical types, and nested values
+ * are records, arrays and maps only when complexTypes is native, otherwise strings like their column.
+ */
+public class AvroSchemaFormat implements SchemaFormat {
+
+    public static final String NAME = "avro";
+    public static final String ATTRIBUTE = "avro.schema";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getAttribute() {
+        return ATTRIBUTE;
+    }
+
+    @Override
+    public String schema(String tableName, TableState table, boolean knownNullability) throws IOException {
+        final String recordName = recordName(tableName);
+        final StringWriter text = new StringWriter(256);
+        try (JsonGenerator json = JSON.createGenerator(text)) {
+            json.writeStartObject();
+            json.writeStringField("type", "record");
+            json.writeStringField("name", recordName);
+            json.writeArrayFieldStart("fields");
+            final Set<String> used = new HashSet<String>();
+            for (ColumnState column : table.getColumns()) {
+                final String name = IdentifierCleaner.unique(column.getName(), used, Integer.MAX_VALUE);
+                json.writeStartObject();
+                json.writeStringField("name", name);
+                final boolean nullable = !knownNullability || column.isNullable(table.getRecordCount());
+                json.writeFieldName("type");
+                if (nullable) {
+                    json.writeStartArray();
+                    json.writeString("null");
+                }
+                if (column.getType() == ColumnState.JSON && column.getNestedType() != null) {
+                    writeNested(json, column.getNestedType(), recordName + "_" + name);
+                } else {
+                    writeScalar(json, column.getType());
+                }
+                if (nullable) {
+                    json.writeEndArray();
+                    json.writeNullField("default");
+                }
+                writeAliases(json, column.getKey(), name);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        return text.toString();
+    }
+
+    private static String recordName(String tableName) {
+        final String name = IdentifierCleaner.clean(String.valueOf(tableName));
+        return name.isEmpty() ? "record" : name;
+    }
+
+    private static void writeScalar(JsonGenerator json, int type) throws IOException {
+        switch (type) {
+            case ColumnState.BOOLEAN:
+                json.writeString("boolean");
+                break;
+            case ColumnState.INT:
+                json.writeString("int");
+                break;
+            case ColumnState.LONG:
+                json.writeString("long");
+                break;
+            case ColumnState.DECIMAL:
+                json.writeString("double");
+                break;
+            case ColumnState.DATE:
+                writeLogical(json, "int", "date");
+                break;
+            case ColumnState.DATETIME:
+                writeLogical(json, "long", "timestamp-millis");
+                break;
+            default:
+                json.writeString("string");
+                break;
+        }
+    }
+
+    private static void writeLogical(JsonGenerator json, String type, String logicalType) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("type", type);
+        json.writeStringField("logicalType", logicalType);
+        json.writeEndObject();
+    }
+
+    /**
+     * @param recordName name for a record, unique as it follows the path of the value
+     */
+    private static void writeNested(JsonGenerator json, NestedType nested, String recordName) throws IOException {
+        switch (nested.getKind()) {
+            case NestedType.SCALAR:
+                writeScalar(json, nested.getScalarType());
+                break;
+            case NestedType.ARRAY:
+                json.writeStartObject();
+                json.writeStringField("type", "array");
+                json.writeFieldName("items");
+                if (nested.getElement() == null) {
+                    json.writeString("string");
+                } else {
+                    writeNested(json, nested.getElement(), recordName);
+                }
+                json.writeEndObject();
+                break;
+            case NestedType.MAP:
+                json.writeStartObject();
+                json.writeStringField("type", "map");
+                json.writeFieldName("values");
+                writeNested(json, nested.getElement(), recordName);
+                json.writeEndObject();
+                break;
+            case NestedType.STRUCT:
+                json.writeStartObject();
+                json.writeStringField("type", "record");
+                json.writeStringField("name", recordName);
+                json.writeArrayFieldStart("fields");
+                final Set<String> used = new HashSet<String>();
+                for (Map.Entry<String, NestedType> field : nested.getFields().entrySet()) {
+                    final String name = IdentifierCleaner.unique(IdentifierCleaner.clean(field.getKey()), used, Integer.MAX_VALUE);
+                    // any field of a nested object can be missing
+                    json.writeStartObject();
+                    json.writeStringField("name", name);
+                    json.writeFieldName("type");
+                    json.writeStartArray();
+                    json.writeString("null");
+                    writeNested(json, field.getValue(), recordName + "_" + name);
+                    json.writeEndArray();
+                    json.writeNullField("default");
+                    writeAliases(json, field.getKey(), name);
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+                break;
+            default:
+                json.writeString("string");
+                break;
+        }
+    }
+
+    private static void writeAliases(JsonGenerator json, String key, String name) throws IOException {
+        if (key != null && !key.equals(name)) {
+            json.writeArrayFieldStart("aliases");
+            json.writeString(key);
+            json.writeEndArray();
+        }
+    }
+}
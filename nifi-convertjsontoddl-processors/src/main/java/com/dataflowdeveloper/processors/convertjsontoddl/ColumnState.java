@@ -0,0 +1,227 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The inferred type of one column, widened as more values are observed.
+ * Holds only a few primitives, so a scan costs O(columns) no matter how many records it reads.
+ * The type and longest value are one TypeLattice element, and states of disjoint records merge
+ * into the state of all of them.
+ */
+public class ColumnState {
+
+    public static final int NONE = 0;
+    public static final int CHAR = 1;
+    public static final int BOOLEAN = 2;
+    public static final int INT = 3;
+    public static final int LONG = 4;
+    public static final int DECIMAL = 5;
+    public static final int DATE = 6;
+    public static final int DATETIME = 7;
+    public static final int VARCHAR = 8;
+    /** a nested object or array kept whole */
+    public static final int JSON = 9;
+
+    /** used when only nulls were seen */
+    public static final int DEFAULT_VARCHAR_SIZE = 50;
+
+    private final String name;
+    private long element = TypeLattice.BOTTOM;
+    private long nonNullCount;
+    private long lastRecord = -1;
+    private final long[] typeCounts = new long[JSON + 1];
+    private long valueCount;
+    private NestedType nestedType;
+    private NumericRange numericRange;
+    private String key;
+    private String[] path;
+
+    public ColumnState(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param name column name
+     * @param type type constant
+     * @param maxLength longest value
+     * @return column as if one value of the type and length was observed
+     */
+    static ColumnState of(String name, int type, int maxLength) {
+        final ColumnState column = new ColumnState(name);
+        column.observe(0, type, maxLength);
+        return column;
+    }
+
+    /**
+     * record one value
+     *
+     * @param record index of the record the value belongs to
+     * @param valueType one of the type constants, NONE for a null
+     * @param length text length of the value
+     * @return true when the value widened the type or the longest value
+     */
+    public boolean observe(long record, int valueType, int length) {
+        if (valueType == NONE) {
+            return false;
+        }
+        if (record != lastRecord) {
+            lastRecord = record;
+            nonNullCount++;
+        }
+        final long before = element;
+        element = TypeLattice.merge(element, TypeLattice.of(valueType, length));
+        typeCounts[valueType]++;
+        valueCount++;
+        return element != before;
+    }
+
+    /**
+     * merge the state of other records of the same column, as if their values had been observed here.
+     * The result does not depend on the order states are merged in, other is not to be used afterwards
+     *
+     * @param other state of records disjoint from the records of this state
+     */
+    public void merge(ColumnState other) {
+        element = TypeLattice.merge(element, other.element);
+        nonNullCount += other.nonNullCount;
+        valueCount += other.valueCount;
+        for (int i = 0; i < typeCounts.length; i++) {
+            typeCounts[i] += other.typeCounts[i];
+        }
+        if (other.nestedType != null) {
+            if (nestedType == null) {
+                nestedType = new NestedType();
+            }
+            nestedType.merge(other.nestedType);
+        }
+        if (other.numericRange != null) {
+            if (numericRange == null) {
+                numericRange = new NumericRange();
+            }
+            numericRange.merge(other.numericRange);
+        }
+        if (key == null) {
+            key = other.key;
+        }
+        if (path == null) {
+            path = other.path;
+        }
+    }
+
+    /**
+     * smallest type that holds values of both types
+     *
+     * @param a type constant
+     * @param b type constant
+     * @return widened type constant
+     * @see TypeLattice#join(int, int)
+     */
+    public static int widen(int a, int b) {
+        return TypeLattice.join(a, b);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getType() {
+        return TypeLattice.type(element);
+    }
+
+    public int getMaxLength() {
+        return TypeLattice.maxLength(element);
+    }
+
+    /**
+     * @return type and longest value as one TypeLattice element
+     */
+    public long getElement() {
+        return element;
+    }
+
+    /**
+     * @param recordCount number of records scanned
+     * @return true when the column was missing or null in any of them
+     */
+    public boolean isNullable(long recordCount) {
+        return nonNullCount < recordCount;
+    }
+
+    /**
+     * @return fraction of the non-null values observed that fit the inferred type along their own chain,
+     * so INT values count for a LONG column but numbers or dates only held by a VARCHAR do not.
+     * Low values mean the type was decided by a few outliers
+     */
+    public double getConfidence() {
+        if (valueCount == 0) {
+            return 0.0;
+        }
+        final int type = getType();
+        long fitting = 0;
+        for (int valueType = 0; valueType < typeCounts.length; valueType++) {
+            if (TypeLattice.isWithin(valueType, type) && (type != VARCHAR || valueType == CHAR || valueType == VARCHAR)) {
+                fitting += typeCounts[valueType];
+            }
+        }
+        return (double) fitting / valueCount;
+    }
+
+    /**
+     * @return type tree of the JSON values when native complex types are inferred, otherwise null
+     */
+    public NestedType getNestedType() {
+        return nestedType;
+    }
+
+    void setNestedType(NestedType nestedType) {
+        this.nestedType = nestedType;
+    }
+
+    /**
+     * @return range, precision and scale of the numbers when precise numeric types are inferred, otherwise null
+     */
+    public NumericRange getNumericRange() {
+        return numericRange;
+    }
+
+    void setNumericRange(NumericRange numericRange) {
+        this.numericRange = numericRange;
+    }
+
+    /**
+     * @return raw JSON field name for a field of the table object itself, null for a flattened or exploded column
+     */
+    public String getKey() {
+        return key;
+    }
+
+    void setKey(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return raw JSON field names from the table object down to the column, null when the path runs through an array
+     */
+    public String[] getPath() {
+        return path;
+    }
+
+    void setPath(String[] path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,341 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Single pass recognizer for the supported date shapes, working on a char range so that values
+ * can be checked straight from the parser text buffer. Nothing is allocated and nothing is thrown.
+ *
+ * DATE: yyyy-M-d
+ * DATETIME: yyyy-M-d followed by 'T' or ' ' and HH:mm[:ss[.SSS]][zone],
+ * d/M/yyyy (a valid 19xx/20xx calendar date, see DateValidator),
+ * d/M/yyyy HH:mm:ss (VALID_DATETIME_FORMAT) and
+ * EEE, d MMM yyyy HH:mm:ss Z (VALID_RFC822_DATETIME_FORMAT)
+ */
+public final class DateScanner {
+
+    private static final String DAYS = "sunmontuewedthufrisat";
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+
+    private DateScanner() {
+    }
+
+    /**
+     * @param text value
+     * @return ColumnState.DATE, ColumnState.DATETIME or ColumnState.NONE when it is not a date
+     */
+    public static int classify(String text) {
+        return classify(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * @param text buffer holding the value
+     * @param offset first char of the value
+     * @param length chars in the value
+     * @return ColumnState.DATE, ColumnState.DATETIME or ColumnState.NONE when it is not a date
+     */
+    public static int classify(char[] text, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && isSpace(text[start])) {
+            start++;
+        }
+        while (end > start && isSpace(text[end - 1])) {
+            end--;
+        }
+        // shortest shape is yyyy-M-d
+        if (end - start < 8) {
+            return ColumnState.NONE;
+        }
+
+        final char first = text[start];
+        if (isDigit(first)) {
+            final int digits = digits(text, start, end, 4);
+            if (digits == 4 && text[start + 4] == '-') {
+                return isoDate(text, start, end);
+            } else if (digits <= 2 && text[start + digits] == '/') {
+                return slashDate(text, start, end);
+            }
+        } else if (isLetter(first)) {
+            return rfc822(text, start, end);
+        }
+        return ColumnState.NONE;
+    }
+
+    private static int isoDate(char[] text, int start, int end) {
+        int p = start + 5;
+        final int monthDigits = digits(text, p, end, 2);
+        if (monthDigits == 0 || !isMonth(value(text, p, monthDigits))) {
+            return ColumnState.NONE;
+        }
+        p += monthDigits;
+        if (p >= end || text[p] != '-') {
+            return ColumnState.NONE;
+        }
+        p++;
+        final int dayDigits = digits(text, p, end, 2);
+        if (dayDigits == 0 || !isDay(value(text, p, dayDigits))) {
+            return ColumnState.NONE;
+        }
+        p += dayDigits;
+        if (p == end) {
+            return ColumnState.DATE;
+        }
+        if ((text[p] == 'T' || text[p] == ' ') && isTime(text, p + 1, end, true)) {
+            return ColumnState.DATETIME;
+        }
+        return ColumnState.NONE;
+    }
+
+    private static int slashDate(char[] text, int start, int end) {
+        int p = start;
+        final int dayDigits = digits(text, p, end, 2);
+        final int day = value(text, p, dayDigits);
+        p += dayDigits + 1;
+        final int monthDigits = digits(text, p, end, 2);
+        if (monthDigits == 0) {
+            return ColumnState.NONE;
+        }
+        final int month = value(text, p, monthDigits);
+        p += monthDigits;
+        if (p >= end || text[p] != '/') {
+            return ColumnState.NONE;
+        }
+        p++;
+        if (digits(text, p, end, 4) != 4) {
+            return ColumnState.NONE;
+        }
+        final int year = value(text, p, 4);
+        p += 4;
+
+        if (p == end) {
+            return isCalendarDate(day, month, year) ? ColumnState.DATETIME : ColumnState.NONE;
+        }
+        // either order of day and month is seen with a time
+        if (text[p] == ' ' && isDay(day) && isDay(month) && isTime(text, p + 1, end, false)) {
+            return ColumnState.DATETIME;
+        }
+        return ColumnState.NONE;
+    }
+
+    private static boolean isCalendarDate(int day, int month, int year) {
+        if (!isDay(day) || !isMonth(month) || year < 1900 || year > 2099) {
+            return false;
+        } else if (day == 31 && (month == 4 || month == 6 || month == 9 || month == 11)) {
+            return false;
+        } else if (month == 2) {
+            return day < 30 && (day < 29 || year % 4 == 0);
+        }
+        return true;
+    }
+
+    private static int rfc822(char[] text, int start, int end) {
+        int p = start;
+        if (!isName(text, p, end, DAYS)) {
+            return ColumnState.NONE;
+        }
+        p = skipLetters(text, p, end);
+        if (p >= end || text[p] != ',') {
+            return ColumnState.NONE;
+        }
+        p = skipSpaces(text, p + 1, end);
+
+        final int dayDigits = digits(text, p, end, 2);
+        if (dayDigits == 0 || !isDay(value(text, p, dayDigits))) {
+            return ColumnState.NONE;
+        }
+        p = skipSpaces(text, p + dayDigits, end);
+
+        if (!isName(text, p, end, MONTHS)) {
+            return ColumnState.NONE;
+        }
+        p = skipSpaces(text, skipLetters(text, p, end), end);
+
+        if (digits(text, p, end, 4) != 4) {
+            return ColumnState.NONE;
+        }
+        p = skipSpaces(text, p + 4, end);
+
+        final int timeEnd = timeEnd(text, p, end);
+        if (timeEnd < 0) {
+            return ColumnState.NONE;
+        }
+        p = skipSpaces(text, timeEnd, end);
+        return isZone(text, p, end) ? ColumnState.DATETIME : ColumnState.NONE;
+    }
+
+    /**
+     * HH:mm[:ss[.S+]] then, when zoned, an optional Z or numeric offset, then the end
+     */
+    private static boolean isTime(char[] text, int p, int end, boolean zoned) {
+        final int timeEnd = timeEnd(text, p, end);
+        if (timeEnd < 0) {
+            return false;
+        } else if (timeEnd == end) {
+            return true;
+        }
+        return zoned && isZone(text, timeEnd, end);
+    }
+
+    /**
+     * @return index after HH:mm[:ss[.S+]], -1 when there is no time at p
+     */
+    private static int timeEnd(char[] text, int p, int end) {
+        final int hourDigits = digits(text, p, end, 2);
+        if (hourDigits == 0 || value(text, p, hourDigits) > 23) {
+            return -1;
+        }
+        p += hourDigits;
+        if (p >= end || text[p] != ':') {
+            return -1;
+        }
+        p++;
+        final int minuteDigits = digits(text, p, end, 2);
+        if (minuteDigits == 0 || value(text, p, minuteDigits) > 59) {
+            return -1;
+        }
+        p += minuteDigits;
+        if (p < end && text[p] == ':') {
+            p++;
+            final int secondDigits = digits(text, p, end, 2);
+            if (secondDigits == 0 || value(text, p, secondDigits) > 60) {
+                return -1;
+            }
+            p += secondDigits;
+            if (p < end && (text[p] == '.' || text[p] == ',')) {
+                final int fraction = digits(text, p + 1, end, 9);
+                if (fraction == 0) {
+                    return -1;
+                }
+                p += fraction + 1;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Z, +HHmm, +HH:mm, +HH or a zone name such as GMT, optionally followed by an offset
+     */
+    private static boolean isZone(char[] text, int p, int end) {
+        if (p >= end) {
+            return false;
+        }
+        if (text[p] == 'Z' && p + 1 == end) {
+            return true;
+        }
+        if (isLetter(text[p])) {
+            final int letters = skipLetters(text, p, end) - p;
+            if (letters > 5) {
+                return false;
+            }
+            p += letters;
+            if (p == end) {
+                return true;
+            }
+        }
+        if (text[p] != '+' && text[p] != '-') {
+            return false;
+        }
+        p++;
+        final int hourDigits = digits(text, p, end, 4);
+        if (hourDigits == 4) {
+            return p + 4 == end;
+        } else if (hourDigits == 0) {
+            return false;
+        }
+        p += hourDigits;
+        if (p == end) {
+            return true;
+        } else if (text[p] != ':') {
+            return false;
+        }
+        return digits(text, p + 1, end, 2) == 2 && p + 3 == end;
+    }
+
+    private static boolean isName(char[] text, int p, int end, String names) {
+        if (p + 3 > end) {
+            return false;
+        }
+        final char a = Character.toLowerCase(text[p]);
+        final char b = Character.toLowerCase(text[p + 1]);
+        final char c = Character.toLowerCase(text[p + 2]);
+        for (int i = 0; i < names.length(); i += 3) {
+            if (names.charAt(i) == a && names.charAt(i + 1) == b && names.charAt(i + 2) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isMonth(int month) {
+        return month >= 1 && month <= 12;
+    }
+
+    private static boolean isDay(int day) {
+        return day >= 1 && day <= 31;
+    }
+
+    /**
+     * @return number of ASCII digits at p, 0 when there are none or more than max
+     */
+    private static int digits(char[] text, int p, int end, int max) {
+        int count = 0;
+        while (p + count < end && count < max && isDigit(text[p + count])) {
+            count++;
+        }
+        // a longer run of digits is not the field we are looking for
+        if (count == max && p + count < end && isDigit(text[p + count])) {
+            return 0;
+        }
+        return count;
+    }
+
+    private static int value(char[] text, int p, int digits) {
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            value = value * 10 + (text[p + i] - '0');
+        }
+        return value;
+    }
+
+    private static int skipLetters(char[] text, int p, int end) {
+        while (p < end && isLetter(text[p])) {
+            p++;
+        }
+        return p;
+    }
+
+    private static int skipSpaces(char[] text, int p, int end) {
+        while (p < end && text[p] == ' ') {
+            p++;
+        }
+        return p;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    private static boolean isSpace(char c) {
+        return c <= ' ';
+    }
+}
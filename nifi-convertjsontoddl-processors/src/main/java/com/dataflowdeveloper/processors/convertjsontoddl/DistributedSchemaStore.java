@@ -0,0 +1,116 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.nifi.distributed.cache.client.AtomicCacheEntry;
+import org.apache.nifi.distributed.cache.client.AtomicDistributedMapCacheClient;
+import org.apache.nifi.distributed.cache.client.Deserializer;
+import org.apache.nifi.distributed.cache.client.Serializer;
+
+/**
+ * SchemaStore shared by the nodes of a cluster through a distributed map cache.
+ *
+ * Reads are answered from a local copy, only a table not seen by this node is fetched.
+ * A stale copy is safe: schemas only grow, so content that fits the local copy fits the
+ * shared one too, and content that does not is merged and written with a compare and set
+ * against the entry fetched for the write, which fails and refreshes the local copy when
+ * another node changed the table in between.
+ */
+public class DistributedSchemaStore implements SchemaStore {
+
+    private static final Serializer<String> KEY_SERIALIZER = new Serializer<String>() {
+        @Override
+        public void serialize(String value, OutputStream output) throws IOException {
+            output.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    private static final Serializer<byte[]> VALUE_SERIALIZER = new Serializer<byte[]>() {
+        @Override
+        public void serialize(byte[] value, OutputStream output) throws IOException {
+            output.write(value);
+        }
+    };
+
+    private static final Deserializer<byte[]> VALUE_DESERIALIZER = new Deserializer<byte[]>() {
+        @Override
+        public byte[] deserialize(byte[] input) {
+            return input == null || input.length == 0 ? null : input;
+        }
+    };
+
+    private final AtomicDistributedMapCacheClient<Object> client;
+    private final String keyPrefix;
+    private final ConcurrentMap<String, KnownSchema> local = new ConcurrentHashMap<String, KnownSchema>();
+
+    /**
+     * @param client distributed map cache with compare and set
+     * @param keyPrefix prepended to every table key, keeps the entries apart from other users of the cache
+     */
+    @SuppressWarnings("unchecked")
+    public DistributedSchemaStore(AtomicDistributedMapCacheClient<?> client, String keyPrefix) {
+        // the revision is only handed back to the client, its type does not matter here
+        this.client = (AtomicDistributedMapCacheClient<Object>) client;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public KnownSchema get(String table) throws IOException {
+        final KnownSchema schema = local.get(table);
+        if (schema != null) {
+            return schema;
+        }
+        return refresh(table, client.fetch(keyPrefix + table, KEY_SERIALIZER, VALUE_DESERIALIZER));
+    }
+
+    @Override
+    public boolean replace(String table, KnownSchema expected, KnownSchema updated) throws IOException {
+        final AtomicCacheEntry<String, byte[], Object> entry = client.fetch(keyPrefix + table, KEY_SERIALIZER, VALUE_DESERIALIZER);
+        final byte[] current = entry == null ? null : entry.getValue();
+        if (expected == null ? current != null : current == null || !Arrays.equals(current, expected.encode())) {
+            refresh(table, entry);
+            return false;
+        }
+
+        final AtomicCacheEntry<String, byte[], Object> replacement = new AtomicCacheEntry<String, byte[], Object>(
+                keyPrefix + table, updated.encode(), entry == null ? null : entry.getRevision().orElse(null));
+        if (client.replace(replacement, KEY_SERIALIZER, VALUE_SERIALIZER)) {
+            local.put(table, updated);
+            return true;
+        }
+        local.remove(table);
+        return false;
+    }
+
+    private KnownSchema refresh(String table, AtomicCacheEntry<String, byte[], Object> entry) throws IOException {
+        if (entry == null || entry.getValue() == null) {
+            local.remove(table);
+            return null;
+        }
+        final KnownSchema schema = KnownSchema.decode(entry.getValue());
+        local.put(table, schema);
+        return schema;
+    }
+}
@@ -0,0 +1,99 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Apache Hive, see https://cwiki.apache.org/confluence/display/Hive/LanguageManual+Types
+ */
+public class HiveDialect extends AbstractSqlDialect {
+
+    private static final Set<String> RESERVED = reserved("ARRAY", "BIGINT", "BINARY", "BOOLEAN", "CUBE", "CURSOR",
+            "DATABASE", "DATE", "DECIMAL", "DOUBLE", "EXCHANGE", "EXTENDED", "EXTERNAL", "FLOAT", "FUNCTION", "IF",
+            "IMPORT", "INT", "INTERVAL", "LATERAL", "LESS", "LOCAL", "MACRO", "MAP", "MORE", "NONE", "OUT", "OVER",
+            "PARTIAL", "PARTITION", "PERCENT", "PRESERVE", "PROCEDURE", "RANGE", "READS", "REDUCE", "REVOKE",
+            "ROLLUP", "ROW", "ROWS", "SMALLINT", "TIMESTAMP", "TRANSFORM", "TRIGGER", "TRUNCATE", "UNIQUEJOIN",
+            "VARCHAR", "VIEWS", "WINDOW");
+
+    public HiveDialect() {
+        super("hive", types("CHAR(1)", "BOOLEAN", "INT", "BIGINT", "DECIMAL(38,10)", "DATE", "TIMESTAMP"),
+                "VARCHAR", 65535, "STRING", '`', 128, RESERVED);
+    }
+
+    @Override
+    protected String complexType(NestedType nested) {
+        switch (nested.getKind()) {
+            case NestedType.SCALAR:
+                final int type = nested.getScalarType();
+                // sized strings are not worth keeping inside complex types
+                return type == ColumnState.VARCHAR || type == ColumnState.CHAR || type == ColumnState.NONE
+                        ? "STRING" : scalarType(type, nested.getMaxLength());
+            case NestedType.ARRAY:
+                return "ARRAY<" + (nested.getElement() == null ? "STRING" : complexType(nested.getElement())) + ">";
+            case NestedType.MAP:
+                return "MAP<STRING," + complexType(nested.getElement()) + ">";
+            case NestedType.STRUCT:
+                if (nested.getFields().isEmpty()) {
+                    return "STRING";
+                }
+                final StringBuilder struct = new StringBuilder("STRUCT<");
+                final Set<String> used = new HashSet<String>();
+                for (Map.Entry<String, NestedType> field : nested.getFields().entrySet()) {
+                    if (used.size() > 0) {
+                        struct.append(',');
+                    }
+                    final String name = IdentifierCleaner.unique(IdentifierCleaner.clean(field.getKey()), used,
+                            getMaxIdentifierLength());
+                    struct.append(identifier(name)).append(':').append(complexType(field.getValue()));
+                }
+                return struct.append('>').toString();
+            default:
+                return "STRING";
+        }
+    }
+
+    @Override
+    public String primaryKey(String tableName, String columns) {
+        // Hive does not enforce keys
+        return "PRIMARY KEY (" + columns + ") DISABLE NOVALIDATE";
+    }
+
+    @Override
+    public String addColumn(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " ADD COLUMNS (" + column + " " + type + ")";
+    }
+
+    @Override
+    public String alterColumnType(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " CHANGE COLUMN " + column + " " + column + " " + type;
+    }
+
+    @Override
+    public String dropNotNull(String tableName, String column, String type) {
+        // the column is redefined without its constraint
+        return alterColumnType(tableName, column, type);
+    }
+
+    @Override
+    public String foreignKey(String tableName, String columns, String parentTable, String parentColumns) {
+        return super.foreignKey(tableName, columns, parentTable, parentColumns) + " DISABLE NOVALIDATE";
+    }
+}
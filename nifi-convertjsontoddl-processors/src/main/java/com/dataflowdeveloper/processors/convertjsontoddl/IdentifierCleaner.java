@@ -0,0 +1,130 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns raw JSON keys into column names in a single pass over the chars. The first character
+ * that is not an ASCII letter is dropped, as is every later character outside [A-Za-z0-9_].
+ *
+ * The same keys recur in document after document, so clean names are kept in a bounded cache
+ * keyed by the raw key. The cache is emptied once it is full rather than tracking recency,
+ * lookups then stay lock free.
+ */
+public class IdentifierCleaner {
+
+    /** used for keys with no usable character */
+    public static final String DEFAULT_NAME = "field";
+
+    private final int maxEntries;
+    private final Map<String, String> names;
+
+    /**
+     * @param maxEntries raw keys kept before the cache is emptied, 0 for no cache
+     */
+    public IdentifierCleaner(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.names = new ConcurrentHashMap<String, String>(Math.min(maxEntries, 1024));
+    }
+
+    /**
+     * @param rawName JSON key
+     * @return clean name, from the cache when the key was seen before
+     */
+    public String get(String rawName) {
+        if (rawName == null) {
+            return "";
+        }
+        String name = names.get(rawName);
+        if (name == null) {
+            name = clean(rawName);
+            if (maxEntries > 0) {
+                if (names.size() >= maxEntries) {
+                    names.clear();
+                }
+                names.put(rawName, name);
+            }
+        }
+        return name;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * @param rawName JSON key
+     * @return clean name, the key itself when nothing had to be removed
+     */
+    public static String clean(String rawName) {
+        if (rawName == null) {
+            return "";
+        }
+        final int length = rawName.length();
+        int i = 0;
+        while (i < length && isLetter(rawName.charAt(i))) {
+            i++;
+        }
+        if (i == length) {
+            return rawName;
+        }
+
+        // i is the first character that is not a letter, it is always dropped
+        final char[] clean = new char[length - 1];
+        rawName.getChars(0, i, clean, 0);
+        int cleanLength = i;
+        for (i++; i < length; i++) {
+            final char c = rawName.charAt(i);
+            if (isLetter(c) || c == '_' || (c >= '0' && c <= '9')) {
+                clean[cleanLength++] = c;
+            }
+        }
+        return new String(clean, 0, cleanLength);
+    }
+
+    /**
+     * make a clean name distinct from the names already used in a table, ignoring case,
+     * by adding _2, _3 and so on, keeping within the identifier length
+     *
+     * @param cleanName clean name
+     * @param used lower case names already in the table, the returned name is added
+     * @param maxLength longest identifier
+     * @return cleanName or a suffixed variant of it
+     */
+    public static String unique(String cleanName, Set<String> used, int maxLength) {
+        final String base = cleanName.isEmpty() ? DEFAULT_NAME : cleanName;
+        String candidate = truncate(base, maxLength);
+        for (int n = 2; !used.add(candidate.toLowerCase(Locale.ROOT)); n++) {
+            final String suffix = "_" + n;
+            candidate = truncate(base, maxLength - suffix.length()) + suffix;
+        }
+        return candidate;
+    }
+
+    private static String truncate(String name, int maxLength) {
+        return name.length() > maxLength ? name.substring(0, Math.max(maxLength, 0)) : name;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+}
@@ -0,0 +1,186 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.nifi.processor.ProcessSession;
+
+/**
+ * Counts and phase timings of the DDL of one FlowFile. Everything is taken once per phase or
+ * per column after inference, never per value, so the cost is a few System.nanoTime calls
+ * and counter updates per FlowFile.
+ *
+ * Tokenizing and classification interleave value by value, timing them apart would take a
+ * timestamp per value, so both are the infer phase. Fingerprint is the schema cache lookup,
+ * render is writing the DDL and the schema attributes.
+ *
+ * Bytes read is the content read by inference. The fingerprint reads the content once more and
+ * is counted apart, and a cache hit skips inference, leaving its records, columns and infer and
+ * render timings at 0.
+ */
+public class InferenceMetrics {
+
+    public static final String COUNTER_BYTES_READ = "Bytes read";
+    public static final String COUNTER_RECORDS_SCANNED = "Records scanned";
+    public static final String COUNTER_COLUMNS_EMITTED = "Columns emitted";
+    public static final String COUNTER_FINGERPRINT_BYTES = "Fingerprint bytes";
+    public static final String COUNTER_FINGERPRINT_NANOS = "Fingerprint nanos";
+    public static final String COUNTER_INFER_NANOS = "Infer nanos";
+    public static final String COUNTER_RENDER_NANOS = "Render nanos";
+    /** followed by the type name */
+    public static final String COUNTER_COLUMNS_PREFIX = "Columns ";
+
+    /** names of the ColumnState type constants */
+    static final String[] TYPE_NAMES = {"none", "char", "boolean", "int", "long", "decimal", "date", "datetime", "varchar", "json"};
+
+    private long bytesRead;
+    private long recordsScanned;
+    private long columnsEmitted;
+    private long fingerprintBytes;
+    private long fingerprintNanos;
+    private boolean cacheHit;
+    private long inferNanos;
+    private long renderNanos;
+    private final long[] typeColumns = new long[ColumnState.JSON + 1];
+
+    void addBytesRead(long bytes) {
+        bytesRead += bytes;
+    }
+
+    void addFingerprintBytes(long bytes) {
+        fingerprintBytes += bytes;
+    }
+
+    void addFingerprintNanos(long nanos) {
+        fingerprintNanos += nanos;
+    }
+
+    /**
+     * record that the DDL came from the schema cache, without inference
+     */
+    void cacheHit() {
+        cacheHit = true;
+    }
+
+    /**
+     * record one inference and the rendering of its tables
+     *
+     * @param inferrer inference that was rendered
+     * @param inferNanos time reading and classifying the content
+     * @param renderNanos time rendering the DDL
+     */
+    void inferred(JsonSchemaInferrer inferrer, long inferNanos, long renderNanos) {
+        this.inferNanos += inferNanos;
+        this.renderNanos += renderNanos;
+        recordsScanned += inferrer.getScannedCount();
+        countColumns(inferrer.getTable());
+        final List<TableState> children = inferrer.getChildTables();
+        for (int i = 0; i < children.size(); i++) {
+            countColumns(children.get(i));
+        }
+    }
+
+    private void countColumns(TableState table) {
+        for (ColumnState column : table.getColumns()) {
+            columnsEmitted++;
+            typeColumns[column.getType()]++;
+        }
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getFingerprintBytes() {
+        return fingerprintBytes;
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public long getRecordsScanned() {
+        return recordsScanned;
+    }
+
+    public long getColumnsEmitted() {
+        return columnsEmitted;
+    }
+
+    /**
+     * @param type ColumnState type constant
+     * @return columns inferred as that type
+     */
+    public long getTypeColumns(int type) {
+        return typeColumns[type];
+    }
+
+    /**
+     * add the metrics to the processor counters, leaving zero counts out
+     *
+     * @param session session of the FlowFile
+     */
+    public void adjustCounters(ProcessSession session) {
+        adjust(session, COUNTER_BYTES_READ, bytesRead);
+        adjust(session, COUNTER_RECORDS_SCANNED, recordsScanned);
+        adjust(session, COUNTER_COLUMNS_EMITTED, columnsEmitted);
+        adjust(session, COUNTER_FINGERPRINT_BYTES, fingerprintBytes);
+        adjust(session, COUNTER_FINGERPRINT_NANOS, fingerprintNanos);
+        adjust(session, COUNTER_INFER_NANOS, inferNanos);
+        adjust(session, COUNTER_RENDER_NANOS, renderNanos);
+        for (int type = 0; type < typeColumns.length; type++) {
+            adjust(session, COUNTER_COLUMNS_PREFIX + TYPE_NAMES[type], typeColumns[type]);
+        }
+    }
+
+    private static void adjust(ProcessSession session, String counter, long delta) {
+        if (delta != 0) {
+            session.adjustCounter(counter, delta, false);
+        }
+    }
+
+    /**
+     * @param cache schema cache of the processor, null when it has none
+     * @return name=value pairs, comma separated, the cache hit rate is over the life of the cache and
+     * cacheHit tells whether this FlowFile skipped inference
+     */
+    public String toAttribute(SchemaCache cache) {
+        final StringBuilder text = new StringBuilder(192);
+        text.append("bytesRead=").append(bytesRead)
+                .append(",recordsScanned=").append(recordsScanned)
+                .append(",columnsEmitted=").append(columnsEmitted)
+                .append(",fingerprintBytes=").append(fingerprintBytes)
+                .append(",fingerprintNanos=").append(fingerprintNanos)
+                .append(",inferNanos=").append(inferNanos)
+                .append(",renderNanos=").append(renderNanos);
+        if (cache != null) {
+            final long lookups = cache.getHits() + cache.getMisses();
+            final double hitRate = lookups == 0 ? 0.0 : (double) cache.getHits() / lookups;
+            text.append(",cacheHit=").append(cacheHit)
+                    .append(",cacheHitRate=").append(String.format(Locale.ROOT, "%.3f", hitRate));
+        }
+        for (int type = 0; type < typeColumns.length; type++) {
+            if (typeColumns[type] > 0) {
+                text.append(',').append(TYPE_NAMES[type]).append('=').append(typeColumns[type]);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,233 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * JSON Schema, draft 07, of the documents the table was inferred from. Properties are named by
+ * the raw JSON key, so the schema validates the content itself: flattened columns become the
+ * properties of nested objects, and columns exploded from arrays are left out.
+ */
+public class JsonSchemaFormat implements SchemaFormat {
+
+    public static final String NAME = "json-schema";
+    public static final String ATTRIBUTE = "json.schema";
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getAttribute() {
+        return ATTRIBUTE;
+    }
+
+    @Override
+    public String schema(String tableName, TableState table, boolean knownNullability) throws IOException {
+        final Node root = new Node();
+        for (ColumnState column : table.getColumns()) {
+            final String[] path = column.getKey() != null ? new String[] {column.getKey()} : column.getPath();
+            if (path == null) {
+                // no JSON key leads to an exploded array element
+                continue;
+            }
+            Node node = root;
+            for (String key : path) {
+                node = node.field(key);
+            }
+            node.column = column;
+        }
+
+        final StringWriter text = new StringWriter(256);
+        try (JsonGenerator json = JSON.createGenerator(text)) {
+            json.writeStartObject();
+            json.writeStringField("$schema", "http://json-schema.org/draft-07/schema#");
+            json.writeStringField("title", String.valueOf(tableName));
+            json.writeStringField("type", "object");
+            writeProperties(json, root, table.getRecordCount(), knownNullability);
+            json.writeEndObject();
+        }
+        return text.toString();
+    }
+
+    /**
+     * write the properties and required fields of an object
+     */
+    private static void writeProperties(JsonGenerator json, Node node, long recordCount, boolean knownNullability)
+            throws IOException {
+        json.writeObjectFieldStart("properties");
+        final List<String> required = new ArrayList<String>();
+        for (Map.Entry<String, Node> field : node.fields.entrySet()) {
+            final Node child = field.getValue();
+            final boolean nullable = !knownNullability || !child.isRequired(recordCount);
+            json.writeFieldName(field.getKey());
+            if (child.fields.isEmpty()) {
+                final ColumnState column = child.column;
+                if (column.getType() == ColumnState.JSON && column.getNestedType() != null) {
+                    writeNested(json, column.getNestedType(), nullable);
+                } else {
+                    writeScalar(json, column.getType(), nullable);
+                }
+            } else if (child.column != null) {
+                // seen both as an object and as a value
+                writeScalar(json, ColumnState.JSON, nullable);
+            } else {
+                json.writeStartObject();
+                writeType(json, "object", nullable);
+                writeProperties(json, child, recordCount, knownNullability);
+                json.writeEndObject();
+            }
+            if (!nullable) {
+                required.add(field.getKey());
+            }
+        }
+        json.writeEndObject();
+        if (!required.isEmpty()) {
+            json.writeArrayFieldStart("required");
+            for (String name : required) {
+                json.writeString(name);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private static void writeScalar(JsonGenerator json, int type, boolean nullable) throws IOException {
+        json.writeStartObject();
+        switch (type) {
+            case ColumnState.BOOLEAN:
+                writeType(json, "boolean", nullable);
+                break;
+            case ColumnState.INT:
+            case ColumnState.LONG:
+                writeType(json, "integer", nullable);
+                break;
+            case ColumnState.DECIMAL:
+                writeType(json, "number", nullable);
+                break;
+            case ColumnState.DATE:
+                writeType(json, "string", nullable);
+                json.writeStringField("format", "date");
+                break;
+            case ColumnState.DATETIME:
+                writeType(json, "string", nullable);
+                json.writeStringField("format", "date-time");
+                break;
+            case ColumnState.JSON:
+                // any JSON value
+                break;
+            default:
+                writeType(json, "string", nullable);
+                break;
+        }
+        json.writeEndObject();
+    }
+
+    private static void writeType(JsonGenerator json, String type, boolean nullable) throws IOException {
+        if (nullable) {
+            json.writeArrayFieldStart("type");
+            json.writeString(type);
+            json.writeString("null");
+            json.writeEndArray();
+        } else {
+            json.writeStringField("type", type);
+        }
+    }
+
+    private static void writeNested(JsonGenerator json, NestedType nested, boolean nullable) throws IOException {
+        switch (nested.getKind()) {
+            case NestedType.SCALAR:
+                writeScalar(json, nested.getScalarType(), nullable);
+                break;
+            case NestedType.ARRAY:
+                json.writeStartObject();
+                writeType(json, "array", nullable);
+                if (nested.getElement() != null) {
+                    json.writeFieldName("items");
+                    writeNested(json, nested.getElement(), true);
+                }
+                json.writeEndObject();
+                break;
+            case NestedType.MAP:
+                json.writeStartObject();
+                writeType(json, "object", nullable);
+                json.writeFieldName("additionalProperties");
+                writeNested(json, nested.getElement(), true);
+                json.writeEndObject();
+                break;
+            case NestedType.STRUCT:
+                json.writeStartObject();
+                writeType(json, "object", nullable);
+                json.writeObjectFieldStart("properties");
+                for (Map.Entry<String, NestedType> field : nested.getFields().entrySet()) {
+                    json.writeFieldName(field.getKey());
+                    writeNested(json, field.getValue(), true);
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+                break;
+            default:
+                writeScalar(json, ColumnState.JSON, nullable);
+                break;
+        }
+    }
+
+    /**
+     * a property of the documents, a column or an object holding flattened columns
+     */
+    private static final class Node {
+
+        ColumnState column;
+        final Map<String, Node> fields = new LinkedHashMap<String, Node>();
+
+        Node field(String key) {
+            Node node = fields.get(key);
+            if (node == null) {
+                node = new Node();
+                fields.put(key, node);
+            }
+            return node;
+        }
+
+        /**
+         * an object is present in every document when one of its columns is
+         */
+        boolean isRequired(long recordCount) {
+            if (column != null) {
+                return !column.isNullable(recordCount);
+            }
+            for (Node field : fields.values()) {
+                if (field.isRequired(recordCount)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,1296 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Infers column types by walking the tokens of a JsonParser.
+ * No JsonNode tree and no String copy of the content is built, only one
+ * ColumnState per column is kept, so memory does not grow with the input.
+ * In multi-record mode every object of a top level array, or every object of
+ * newline-delimited JSON, is merged into the same columns in a single pass.
+ * A RecordSampler picks which of those records are classified, records outside
+ * the sample are skipped at the token level.
+ *
+ * Nested objects are flattened into columns such as address_city down to maxDepth,
+ * deeper objects become a single JSON column. Arrays are exploded into one column
+ * per index within maxDepth, kept as a JSON column, or read into a child table,
+ * depending on the array policy. Every flattened path is a node of a tree built once
+ * per distinct path, so names are cleaned and joined once rather than per value.
+ * With native complex types, a value kept whole also gets a NestedType tree merged
+ * across every value of the column, bounded by NestedType.MAX_NODES per document.
+ * With precise numeric types, every number also widens a NumericRange of its column,
+ * decimals are no longer read as integers when they fit one, and a string holding a plain
+ * number is read as that number.
+ * In reservoir mode the trees and ranges include records later evicted from the sample.
+ *
+ * With a stability window, reading stops once a run of records or bytes has added
+ * and widened no column, and the rest of the content is left unread.
+ *
+ * The records of a NiFi RecordReader are walked the same way: a nested record or map
+ * is an object, an Object[] an array, and scalars are typed by their Java class.
+ */
+public class JsonSchemaInferrer {
+
+    public static final String ARRAYS_EXPLODE_INDEX = "explode-index";
+    public static final String ARRAYS_JSON = "json";
+    public static final String ARRAYS_CHILD_TABLE = "child-table";
+
+    /** column of a child table holding scalar array elements */
+    public static final String VALUE_COLUMN = "value";
+
+    // text lengths of record temporal values, as yyyy-MM-dd, HH:mm:ss and yyyy-MM-dd HH:mm:ss
+    private static final int DATE_LENGTH = 10;
+    private static final int TIME_LENGTH = 8;
+    private static final int DATETIME_LENGTH = 19;
+
+    private static final int NOT_A_NUMBER = 0;
+    private static final int INTEGER = 1;
+    private static final int DECIMAL = 2;
+    private static final int APPROXIMATE = 3;
+
+    private final boolean allRecords;
+    private final long maxRecords;
+    private final RecordSampler sampler;
+    private final int maxDepth;
+    private final String separator;
+    private final String arrayPolicy;
+    private final IdentifierCleaner names;
+    private final boolean nativeTypes;
+    private final boolean preciseNumbers;
+    private final int[] nestedBudget = {NestedType.MAX_NODES};
+
+    private final TableState table = new TableState(null, null);
+    private final List<TableState> childTables = new ArrayList<TableState>();
+    private final Path root = new Path(null, null, -1);
+    private final List<Path> paths = new ArrayList<Path>();
+
+    // reservoir mode only: per slot a run of (path, type, length, element) quads
+    private int[][] reservoir;
+    private int[] reservoirLength;
+    private int[] slotValues;
+    private int slotLength;
+    private int slotElement;
+
+    private int lastLength;
+    private long mergedScanned;
+    private long mergedBytes;
+    // stability window only: whether the record being read changed a column, and where the last change ended
+    private long stabilityRecords;
+    private long stabilityBytes;
+    private boolean schemaChanged;
+    private long changedRecords;
+    private long changedOffset;
+    private long lastOffset;
+    private long scannedBytes = -1;
+    // precise numeric types only: the number classify last saw, NOT_A_NUMBER otherwise
+    private int lastNumber = NOT_A_NUMBER;
+    private long lastInteger;
+    private int lastIntegerDigits;
+    private int lastScale;
+    private char[] textBuffer = new char[64];
+
+    /**
+     * infer from the first top level object only
+     */
+    public JsonSchemaInferrer() {
+        this(false, 0);
+    }
+
+    /**
+     * @param allRecords read every record rather than only the first object
+     * @param maxRecords stop after this many records, 0 for no limit
+     */
+    public JsonSchemaInferrer(boolean allRecords, long maxRecords) {
+        this(allRecords, maxRecords, new RecordSampler());
+    }
+
+    /**
+     * @param allRecords read every record rather than only the first object
+     * @param maxRecords stop after this many records, 0 for no limit
+     * @param sampler picks the records that are classified
+     */
+    public JsonSchemaInferrer(boolean allRecords, long maxRecords, RecordSampler sampler) {
+        this(allRecords, maxRecords, sampler, 0, "_", ARRAYS_JSON, new IdentifierCleaner(0), false, false);
+    }
+
+    /**
+     * @param allRecords read every record rather than only the first object
+     * @param maxRecords stop after this many records, 0 for no limit
+     * @param sampler picks the records that are classified
+     * @param maxDepth levels of nested objects and exploded arrays flattened into columns
+     * @param separator joins the names of a flattened path
+     * @param arrayPolicy one of ARRAYS_EXPLODE_INDEX, ARRAYS_JSON, ARRAYS_CHILD_TABLE
+     * @param names cleans field names into column names
+     * @param nativeTypes infer a NestedType for every value kept whole
+     * @param preciseNumbers track a NumericRange for every numeric column
+     */
+    public JsonSchemaInferrer(boolean allRecords, long maxRecords, RecordSampler sampler, int maxDepth,
+            String separator, String arrayPolicy, IdentifierCleaner names, boolean nativeTypes, boolean preciseNumbers) {
+        this.allRecords = allRecords;
+        this.maxRecords = maxRecords;
+        this.sampler = sampler;
+        this.maxDepth = maxDepth;
+        this.separator = separator;
+        this.arrayPolicy = arrayPolicy;
+        this.names = names;
+        this.nativeTypes = nativeTypes;
+        this.preciseNumbers = preciseNumbers;
+    }
+
+    /**
+     * infer the columns of the content
+     *
+     * @param parser positioned before the first token
+     * @return columns of the document table in order of first appearance, named with clean names
+     * @throws IOException on unreadable or malformed JSON
+     */
+    public Collection<ColumnState> infer(JsonParser parser) throws IOException {
+        return infer(parser, true);
+    }
+
+    /**
+     * @param parser positioned before the first token
+     * @param rootArray a top level array first in the content holds the records, false for a part of
+     *            newline-delimited content, whose arrays are root values like any other
+     * @return columns of the document table in order of first appearance, named with clean names
+     * @throws IOException on unreadable or malformed JSON
+     */
+    Collection<ColumnState> infer(JsonParser parser, boolean rootArray) throws IOException {
+        JsonToken token = parser.nextToken();
+
+        if (!allRecords) {
+            if (token == JsonToken.START_OBJECT) {
+                readRecord(parser);
+            }
+            return table.getColumns();
+        }
+
+        final boolean window = hasStabilityWindow();
+        if (rootArray && token == JsonToken.START_ARRAY) {
+            while (hasCapacity() && (token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Unexpected end of JSON content");
+                }
+                readValue(parser);
+                if (window) {
+                    endRecord(stabilityBytes > 0 ? offset(parser) : -1);
+                }
+            }
+        } else {
+            // newline-delimited or concatenated root values
+            while (token != null) {
+                readValue(parser);
+                if (window) {
+                    endRecord(stabilityBytes > 0 ? offset(parser) : -1);
+                }
+                if (!hasCapacity()) {
+                    break;
+                }
+                token = parser.nextToken();
+            }
+        }
+        if (window) {
+            scannedBytes = offset(parser);
+        }
+
+        if (sampler.isReservoir()) {
+            replayReservoir();
+        }
+        return table.getColumns();
+    }
+
+    /**
+     * stop reading records once the columns have stopped changing. Nullability is not part of it,
+     * a column missing only from records after the window is not nullable. Not applied with
+     * reservoir sampling or native complex types, whose changes are not tracked
+     *
+     * @param records records in a row that add and widen no column, 0 for no limit
+     * @param bytes bytes of JSON content in a row that add and widen no column, 0 for no limit
+     */
+    public void setStabilityWindow(long records, long bytes) {
+        this.stabilityRecords = records;
+        this.stabilityBytes = bytes;
+    }
+
+    /**
+     * infer the columns of the records of a NiFi RecordReader, one record at a time,
+     * with the same sampling, flattening and array policy as JSON content
+     *
+     * @param reader positioned before the first record, not closed
+     * @return columns of the document table in order of first appearance, named with clean names
+     * @throws IOException on unreadable content
+     * @throws MalformedRecordException on a record the reader cannot parse
+     */
+    public Collection<ColumnState> infer(RecordReader reader) throws IOException, MalformedRecordException {
+        Record record;
+
+        if (!allRecords) {
+            if ((record = reader.nextRecord()) != null) {
+                table.addRecord();
+                readRecord(record, root, 0);
+            }
+            return table.getColumns();
+        }
+
+        final boolean window = hasStabilityWindow();
+        while (hasCapacity() && (record = reader.nextRecord()) != null) {
+            final int slot = sampler.next();
+            if (slot == RecordSampler.SKIP) {
+                continue;
+            } else if (sampler.isReservoir()) {
+                beginSlot(slot);
+                readRecord(record, root, 0);
+                endSlot(slot);
+            } else {
+                table.addRecord();
+                readRecord(record, root, 0);
+            }
+            if (window) {
+                // records carry no content offset, only the record window applies
+                endRecord(-1);
+            }
+        }
+
+        if (sampler.isReservoir()) {
+            replayReservoir();
+        }
+        return table.getColumns();
+    }
+
+    /**
+     * @return the document table
+     */
+    public TableState getTable() {
+        return table;
+    }
+
+    /**
+     * @return child tables in order of first appearance, parents before their children
+     */
+    public List<TableState> getChildTables() {
+        return childTables;
+    }
+
+    /**
+     * @return number of records merged by the last infer call
+     */
+    public long getRecordCount() {
+        return table.getRecordCount();
+    }
+
+    /**
+     * @return number of records read, sampled or not
+     */
+    public long getScannedCount() {
+        return (allRecords ? sampler.getSeen() : table.getRecordCount()) + mergedScanned;
+    }
+
+    /**
+     * @return bytes of JSON content read when a stability window is set, characters for String content, -1 otherwise
+     */
+    public long getScannedBytes() {
+        return scannedBytes < 0 ? scannedBytes : scannedBytes + mergedBytes;
+    }
+
+    /**
+     * merge the inference of the records that follow the records of this one, as if a single
+     * inference had read them all: columns keep their order of first appearance and states merge
+     * on the TypeLattice. Only the document table is merged, so neither may have child tables
+     *
+     * @param other inference of the following records, not to be used afterwards
+     */
+    public void merge(JsonSchemaInferrer other) {
+        if (!childTables.isEmpty() || !other.childTables.isEmpty()) {
+            throw new IllegalArgumentException("Child tables cannot be merged");
+        }
+        final Map<ColumnState, Path> columnPaths = new IdentityHashMap<ColumnState, Path>();
+        for (Path path : other.paths) {
+            if (path.column != null) {
+                columnPaths.put(path.column, path);
+            }
+        }
+        for (ColumnState column : other.table.getColumns()) {
+            final Path path = resolve(columnPaths.get(column));
+            if (path.column == null) {
+                register(path, new ColumnState(path.name));
+            }
+            path.column.merge(column);
+            path.nested = path.column.getNestedType();
+            path.range = path.column.getNumericRange();
+        }
+        table.setRecordCount(table.getRecordCount() + other.table.getRecordCount());
+        mergedScanned += other.getScannedCount();
+        if (other.scannedBytes >= 0) {
+            mergedBytes += other.getScannedBytes();
+        }
+    }
+
+    /**
+     * @param other path of another inference
+     * @return path of this inference for the same fields and indexes
+     */
+    private Path resolve(Path other) {
+        if (other.parent == null) {
+            return root;
+        }
+        final Path parent = resolve(other.parent);
+        return other.rawName != null ? parent.field(other.rawName) : parent.item(other.index);
+    }
+
+    private boolean hasCapacity() {
+        return (maxRecords <= 0 || sampler.getSeen() < maxRecords) && !sampler.isComplete() && !isStable();
+    }
+
+    /**
+     * @return true when a stability window is set and applies to the sampling and complex types in use
+     */
+    public boolean hasStabilityWindow() {
+        return (stabilityRecords > 0 || stabilityBytes > 0) && !sampler.isReservoir() && !nativeTypes;
+    }
+
+    /**
+     * @return true when the records or bytes since the last change fill the stability window
+     */
+    private boolean isStable() {
+        return hasStabilityWindow() && ((stabilityRecords > 0 && sampler.getSeen() - changedRecords >= stabilityRecords)
+                || (stabilityBytes > 0 && lastOffset - changedOffset >= stabilityBytes));
+    }
+
+    /**
+     * @param offset content offset after the record, -1 when unknown
+     */
+    private void endRecord(long offset) {
+        lastOffset = offset;
+        if (schemaChanged) {
+            schemaChanged = false;
+            changedRecords = sampler.getSeen();
+            changedOffset = offset;
+        }
+    }
+
+    private static long offset(JsonParser parser) {
+        final JsonLocation location = parser.getCurrentLocation();
+        return location.getByteOffset() >= 0 ? location.getByteOffset() : location.getCharOffset();
+    }
+
+    private void readValue(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            // not a record
+            parser.skipChildren();
+            return;
+        }
+
+        final int slot = sampler.next();
+        if (slot == RecordSampler.SKIP) {
+            parser.skipChildren();
+        } else if (sampler.isReservoir()) {
+            readReservoirRecord(parser, slot);
+        } else {
+            readRecord(parser);
+        }
+    }
+
+    private void readRecord(JsonParser parser) throws IOException {
+        table.addRecord();
+        readObject(parser, root, 0);
+    }
+
+    private void readReservoirRecord(JsonParser parser, int slot) throws IOException {
+        beginSlot(slot);
+        readObject(parser, root, 0);
+        endSlot(slot);
+    }
+
+    /**
+     * start collecting the values of a record into a reservoir slot
+     */
+    private void beginSlot(int slot) {
+        if (reservoir == null) {
+            reservoir = new int[64][];
+            reservoirLength = new int[64];
+        }
+        if (slot >= reservoir.length) {
+            reservoir = Arrays.copyOf(reservoir, Math.max(slot + 1, reservoir.length * 2));
+            reservoirLength = Arrays.copyOf(reservoirLength, reservoir.length);
+        }
+        slotValues = reservoir[slot] == null ? new int[64] : reservoir[slot];
+        slotLength = 0;
+        slotElement = 0;
+    }
+
+    private void endSlot(int slot) {
+        reservoir[slot] = slotValues;
+        reservoirLength[slot] = slotLength;
+        slotValues = null;
+    }
+
+    /**
+     * read the fields of an object up to its END_OBJECT
+     */
+    private void readObject(JsonParser parser, Path parent, int depth) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            final Path path = parent.field(parser.getCurrentName());
+            parser.nextToken();
+            readField(parser, path, depth);
+        }
+
+        if (token == null) {
+            throw new IOException("Unexpected end of JSON content");
+        }
+    }
+
+    private void readField(JsonParser parser, Path path, int depth) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                if (depth < maxDepth) {
+                    readObject(parser, path, depth + 1);
+                } else {
+                    readWhole(parser, path);
+                }
+                break;
+            case START_ARRAY:
+                if (ARRAYS_CHILD_TABLE.equals(arrayPolicy)) {
+                    readElements(parser, path);
+                } else if (ARRAYS_EXPLODE_INDEX.equals(arrayPolicy) && depth < maxDepth) {
+                    int index = 0;
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token == null) {
+                            throw new IOException("Unexpected end of JSON content");
+                        }
+                        readField(parser, path.item(index++), depth + 1);
+                    }
+                } else {
+                    readWhole(parser, path);
+                }
+                break;
+            default:
+                final int type = classify(parser);
+                if (lastNumber != NOT_A_NUMBER) {
+                    observeNumber(path);
+                }
+                observe(path, type, lastLength);
+                break;
+        }
+    }
+
+    /**
+     * read a container kept as one JSON column, its length is the length of its text so a
+     * column that also holds strings is sized for both
+     */
+    private void readWhole(JsonParser parser, Path path) throws IOException {
+        final JsonLocation start = parser.getTokenLocation();
+        if (nativeTypes) {
+            if (path.nested == null) {
+                path.nested = new NestedType();
+            }
+            readNested(parser, path.nested);
+        } else {
+            parser.skipChildren();
+        }
+        final long length = offset(parser) - (start.getByteOffset() >= 0 ? start.getByteOffset() : start.getCharOffset());
+        observe(path, ColumnState.JSON, (int) Math.min(Math.max(length, 0), Integer.MAX_VALUE));
+    }
+
+    /**
+     * merge the value the parser is positioned on into a type tree
+     */
+    private void readNested(JsonParser parser, NestedType node) throws IOException {
+        JsonToken token;
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                if (!node.begin(NestedType.STRUCT)) {
+                    parser.skipChildren();
+                    return;
+                }
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    final NestedType field = node.field(parser.getCurrentName(), nestedBudget);
+                    parser.nextToken();
+                    if (field == null) {
+                        parser.skipChildren();
+                    } else {
+                        readNested(parser, field);
+                    }
+                }
+                if (token == null) {
+                    throw new IOException("Unexpected end of JSON content");
+                }
+                break;
+            case START_ARRAY:
+                if (!node.begin(NestedType.ARRAY)) {
+                    parser.skipChildren();
+                    return;
+                }
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new IOException("Unexpected end of JSON content");
+                    }
+                    final NestedType element = node.element(nestedBudget);
+                    if (element == null) {
+                        parser.skipChildren();
+                    } else {
+                        readNested(parser, element);
+                    }
+                }
+                break;
+            default:
+                final int type = classify(parser);
+                node.observe(type, lastLength);
+                break;
+        }
+    }
+
+    /**
+     * read the elements of an array into the child table of its path
+     */
+    private void readElements(JsonParser parser, Path array) throws IOException {
+        if (array.elementRoot == null) {
+            array.elementRoot = new Path(null, array, -1);
+        }
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of JSON content");
+            }
+            if (slotValues != null) {
+                array.element = ++slotElement;
+            } else {
+                array.childTable().addRecord();
+            }
+            if (token == JsonToken.START_OBJECT) {
+                readObject(parser, array.elementRoot, 0);
+            } else {
+                readField(parser, array.elementRoot.field(VALUE_COLUMN), 0);
+            }
+        }
+    }
+
+    /**
+     * read the fields of a record in schema order, or the entries of a map value
+     */
+    private void readRecord(Object value, Path parent, int depth) {
+        if (value instanceof Record) {
+            final Record record = (Record) value;
+            for (RecordField field : record.getSchema().getFields()) {
+                final Object fieldValue = record.getValue(field.getFieldName());
+                // a reader gives every field of the schema, a missing record or array is not a column of its own
+                if (fieldValue != null || !isSpread(field.getDataType(), depth)) {
+                    readRecordField(fieldValue, parent.field(field.getFieldName()), depth);
+                }
+            }
+        } else {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                readRecordField(entry.getValue(), parent.field(String.valueOf(entry.getKey())), depth);
+            }
+        }
+    }
+
+    /**
+     * @return true when values of the type are flattened into columns or read into a child table rather than kept whole
+     */
+    private boolean isSpread(DataType type, int depth) {
+        switch (type.getFieldType()) {
+            case RECORD:
+            case MAP:
+                return depth < maxDepth;
+            case ARRAY:
+                return ARRAYS_CHILD_TABLE.equals(arrayPolicy) || (ARRAYS_EXPLODE_INDEX.equals(arrayPolicy) && depth < maxDepth);
+            default:
+                return false;
+        }
+    }
+
+    private void readRecordField(Object value, Path path, int depth) {
+        if (value instanceof Record || value instanceof Map) {
+            if (depth < maxDepth) {
+                readRecord(value, path, depth + 1);
+            } else {
+                readRecordWhole(value, path);
+            }
+        } else if (value instanceof Object[]) {
+            final Object[] elements = (Object[]) value;
+            if (ARRAYS_CHILD_TABLE.equals(arrayPolicy)) {
+                readRecordElements(elements, path);
+            } else if (ARRAYS_EXPLODE_INDEX.equals(arrayPolicy) && depth < maxDepth) {
+                for (int index = 0; index < elements.length; index++) {
+                    readRecordField(elements[index], path.item(index), depth + 1);
+                }
+            } else {
+                readRecordWhole(value, path);
+            }
+        } else {
+            final int type = classify(value);
+            if (lastNumber != NOT_A_NUMBER) {
+                observeNumber(path);
+            }
+            observe(path, type, lastLength);
+        }
+    }
+
+    private void readRecordWhole(Object value, Path path) {
+        if (nativeTypes) {
+            if (path.nested == null) {
+                path.nested = new NestedType();
+            }
+            readRecordNested(value, path.nested);
+        }
+        observe(path, ColumnState.JSON, (int) Math.min(jsonLength(value), Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param value record field value
+     * @return length of the value written as compact JSON, escapes not counted
+     */
+    private static long jsonLength(Object value) {
+        long length;
+        if (value == null) {
+            return 4;
+        } else if (value instanceof Record) {
+            final Record record = (Record) value;
+            length = 1;
+            for (RecordField field : record.getSchema().getFields()) {
+                length += field.getFieldName().length() + 4 + jsonLength(record.getValue(field.getFieldName()));
+            }
+        } else if (value instanceof Map) {
+            length = 1;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                length += String.valueOf(entry.getKey()).length() + 4 + jsonLength(entry.getValue());
+            }
+        } else if (value instanceof Object[]) {
+            length = 1;
+            for (Object element : (Object[]) value) {
+                length += jsonLength(element) + 1;
+            }
+        } else if (value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value).length();
+        } else {
+            return String.valueOf(value).length() + 2;
+        }
+        // the closing bracket takes the place of the last comma, an empty one has no comma
+        return Math.max(length, 2);
+    }
+
+    private void readRecordNested(Object value, NestedType node) {
+        if (value instanceof Record) {
+            if (!node.begin(NestedType.STRUCT)) {
+                return;
+            }
+            final Record record = (Record) value;
+            for (RecordField field : record.getSchema().getFields()) {
+                final NestedType child = node.field(field.getFieldName(), nestedBudget);
+                if (child != null) {
+                    readRecordNested(record.getValue(field.getFieldName()), child);
+                }
+            }
+        } else if (value instanceof Map) {
+            if (!node.begin(NestedType.STRUCT)) {
+                return;
+            }
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                final NestedType child = node.field(String.valueOf(entry.getKey()), nestedBudget);
+                if (child != null) {
+                    readRecordNested(entry.getValue(), child);
+                }
+            }
+        } else if (value instanceof Object[]) {
+            if (!node.begin(NestedType.ARRAY)) {
+                return;
+            }
+            for (Object element : (Object[]) value) {
+                final NestedType child = node.element(nestedBudget);
+                if (child != null) {
+                    readRecordNested(element, child);
+                }
+            }
+        } else {
+            final int type = classify(value);
+            node.observe(type, lastLength);
+        }
+    }
+
+    private void readRecordElements(Object[] elements, Path array) {
+        if (array.elementRoot == null) {
+            array.elementRoot = new Path(null, array, -1);
+        }
+
+        for (Object element : elements) {
+            if (slotValues != null) {
+                array.element = ++slotElement;
+            } else {
+                array.childTable().addRecord();
+            }
+            if (element instanceof Record || element instanceof Map) {
+                readRecord(element, array.elementRoot, 0);
+            } else {
+                readRecordField(element, array.elementRoot.field(VALUE_COLUMN), 0);
+            }
+        }
+    }
+
+    /**
+     * widen the range of the column by the number classify last saw
+     */
+    private void observeNumber(Path path) {
+        if (path.range == null) {
+            path.range = new NumericRange();
+            if (path.column != null) {
+                path.column.setNumericRange(path.range);
+            }
+        }
+        final boolean widened;
+        if (lastNumber == INTEGER) {
+            widened = path.range.observeInteger(lastInteger);
+        } else if (lastNumber == DECIMAL) {
+            widened = path.range.observeDecimal(lastIntegerDigits, lastScale);
+        } else {
+            widened = path.range.observeApproximate();
+        }
+        schemaChanged |= widened;
+    }
+
+    private void observe(Path path, int type, int length) {
+        if (slotValues != null) {
+            if (slotLength + 4 > slotValues.length) {
+                slotValues = Arrays.copyOf(slotValues, slotValues.length * 2);
+            }
+            slotValues[slotLength++] = path.id;
+            slotValues[slotLength++] = type;
+            slotValues[slotLength++] = length;
+            slotValues[slotLength++] = path.owner == null ? 0 : path.owner.element;
+            return;
+        }
+        if (path.column == null) {
+            register(path, new ColumnState(path.name));
+        }
+        final TableState owner = path.owner == null ? table : path.owner.childTable();
+        schemaChanged |= path.column.observe(owner.getRecordCount() - 1, type, length);
+    }
+
+    private void register(Path path, ColumnState column) {
+        schemaChanged = true;
+        path.column = column;
+        column.setNestedType(path.nested);
+        column.setNumericRange(path.range);
+        column.setKey(path.key);
+        column.setPath(path.rawPath());
+        if (path.owner == null) {
+            table.addColumn(column);
+        } else {
+            final TableState child = path.owner.childTable();
+            addChildTable(child);
+            child.addColumn(column);
+        }
+    }
+
+    private void addChildTable(TableState child) {
+        if (!childTables.contains(child)) {
+            if (child.getParent() != table) {
+                addChildTable(child.getParent());
+            }
+            childTables.add(child);
+        }
+    }
+
+    private void replayReservoir() {
+        final long sampled = sampler.getTaken();
+        final ColumnState[] states = new ColumnState[paths.size()];
+
+        for (int slot = 0; slot < sampled; slot++) {
+            final int[] values = reservoir[slot];
+            for (int i = 0; i < reservoirLength[slot]; i += 4) {
+                final Path path = paths.get(values[i]);
+                if (states[path.id] == null) {
+                    states[path.id] = new ColumnState(path.name);
+                }
+                long record = slot;
+                if (path.owner != null) {
+                    // a new element of the array starts a new child record
+                    final Path array = path.owner;
+                    if (array.replaySlot != slot || array.element != values[i + 3]) {
+                        array.replaySlot = slot;
+                        array.element = values[i + 3];
+                        array.childTable().addRecord();
+                    }
+                    record = array.childTable().getRecordCount() - 1;
+                }
+                states[path.id].observe(record, values[i + 1], values[i + 2]);
+            }
+        }
+
+        // columns seen only in evicted records are not part of the sample
+        for (Path path : paths) {
+            if (states[path.id] != null) {
+                register(path, states[path.id]);
+            }
+        }
+        table.setRecordCount(sampled);
+        reservoir = null;
+    }
+
+    /**
+     * classify the scalar the parser is positioned on, leaving its text length in lastLength
+     *
+     * @param parser positioned on a scalar value token
+     * @return ColumnState type
+     * @throws IOException on unreadable or malformed JSON
+     */
+    private int classify(JsonParser parser) throws IOException {
+        lastNumber = NOT_A_NUMBER;
+        switch (parser.getCurrentToken()) {
+            case VALUE_NUMBER_INT:
+                lastLength = parser.getTextLength();
+                if (preciseNumbers) {
+                    return classifyInteger(parser);
+                }
+                return classifyNumber(parser);
+            case VALUE_NUMBER_FLOAT:
+                lastLength = parser.getTextLength();
+                if (preciseNumbers) {
+                    scanDecimal(parser.getTextCharacters(), parser.getTextOffset(), lastLength);
+                    return ColumnState.DECIMAL;
+                }
+                return classifyNumber(parser);
+            case VALUE_NULL:
+                lastLength = 0;
+                return ColumnState.NONE;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                lastLength = parser.getTextLength();
+                return ColumnState.BOOLEAN;
+            case VALUE_STRING:
+                // classified in place in the parser buffer, no String is created
+                lastLength = parser.getTextLength();
+                return classifyString(parser.getTextCharacters(), parser.getTextOffset(), lastLength);
+            default:
+                final String text = parser.getText();
+                lastLength = text.length();
+                return classifyText(text);
+        }
+    }
+
+    /**
+     * classify a number token as basic numeric types do
+     *
+     * @param parser positioned on a VALUE_NUMBER_INT or VALUE_NUMBER_FLOAT token
+     * @return INT, LONG or DECIMAL
+     * @throws IOException on a malformed number
+     */
+    static int classifyNumber(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NUMBER_INT) {
+            switch (parser.getNumberType()) {
+                case INT:
+                    return ColumnState.INT;
+                case LONG:
+                    return ColumnState.LONG;
+                default:
+                    return ColumnState.DECIMAL;
+            }
+        }
+        // same ranges as JsonNode.canConvertToInt / canConvertToLong
+        final double value = parser.getDoubleValue();
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return ColumnState.INT;
+        } else if (value >= Long.MIN_VALUE && value <= Long.MAX_VALUE) {
+            return ColumnState.LONG;
+        }
+        return ColumnState.DECIMAL;
+    }
+
+    /**
+     * classify an integer token keeping its value, or its digits when it does not fit a long
+     */
+    private int classifyInteger(JsonParser parser) throws IOException {
+        switch (parser.getNumberType()) {
+            case INT:
+                lastNumber = INTEGER;
+                lastInteger = parser.getIntValue();
+                return ColumnState.INT;
+            case LONG:
+                lastNumber = INTEGER;
+                lastInteger = parser.getLongValue();
+                return ColumnState.LONG;
+            default:
+                scanDecimal(parser.getTextCharacters(), parser.getTextOffset(), lastLength);
+                return ColumnState.DECIMAL;
+        }
+    }
+
+    /**
+     * count the digits on either side of the point of a number in place, exponent notation is approximate
+     */
+    private void scanDecimal(char[] text, int offset, int length) {
+        int integerDigits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = offset; i < offset + length; i++) {
+            final char c = text[i];
+            if (c >= '0' && c <= '9') {
+                if (fraction) {
+                    scale++;
+                } else {
+                    integerDigits++;
+                }
+            } else if (c == '.') {
+                fraction = true;
+            } else if (c == 'e' || c == 'E') {
+                lastNumber = APPROXIMATE;
+                return;
+            }
+        }
+        lastNumber = DECIMAL;
+        lastIntegerDigits = integerDigits;
+        lastScale = scale;
+    }
+
+    /**
+     * classify a record value by its Java type, the reader has already coerced it to its schema type,
+     * leaving its text length in lastLength. Only strings are classified by their text
+     *
+     * @param value scalar field value, null for a missing value
+     * @return ColumnState type
+     */
+    private int classify(Object value) {
+        lastNumber = NOT_A_NUMBER;
+        if (value == null) {
+            lastLength = 0;
+            return ColumnState.NONE;
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            lastLength = digits(((Number) value).longValue());
+            observeInteger(((Number) value).longValue());
+            return ColumnState.INT;
+        } else if (value instanceof Long) {
+            lastLength = digits((Long) value);
+            observeInteger((Long) value);
+            return ColumnState.LONG;
+        } else if (value instanceof BigInteger) {
+            lastLength = value.toString().length();
+            if (((BigInteger) value).bitLength() < Long.SIZE) {
+                observeInteger(((BigInteger) value).longValue());
+                return ColumnState.LONG;
+            }
+            observeDecimal(new BigDecimal((BigInteger) value));
+            return ColumnState.DECIMAL;
+        } else if (value instanceof BigDecimal) {
+            lastLength = value.toString().length();
+            observeDecimal((BigDecimal) value);
+            return ColumnState.DECIMAL;
+        } else if (value instanceof Number) {
+            lastLength = value.toString().length();
+            if (preciseNumbers) {
+                // binary floating point has no exact decimal precision
+                lastNumber = APPROXIMATE;
+            }
+            return ColumnState.DECIMAL;
+        } else if (value instanceof Boolean) {
+            lastLength = (Boolean) value ? 4 : 5;
+            return ColumnState.BOOLEAN;
+        } else if (value instanceof java.sql.Date) {
+            lastLength = DATE_LENGTH;
+            return ColumnState.DATE;
+        } else if (value instanceof Time) {
+            // no time of day type, kept as text like an unrecognised string
+            lastLength = TIME_LENGTH;
+            return ColumnState.VARCHAR;
+        } else if (value instanceof Date) {
+            lastLength = DATETIME_LENGTH;
+            return ColumnState.DATETIME;
+        } else if (value instanceof Character) {
+            lastLength = 1;
+            return ColumnState.CHAR;
+        }
+
+        // copied into a reused buffer, the text of a string is classified without allocating
+        final String text = value.toString();
+        lastLength = text.length();
+        if (lastLength > textBuffer.length) {
+            textBuffer = new char[Math.max(lastLength, textBuffer.length * 2)];
+        }
+        text.getChars(0, lastLength, textBuffer, 0);
+        return classifyString(textBuffer, 0, lastLength);
+    }
+
+    /**
+     * classify a string value, a plain number is the number when numeric types are precise
+     */
+    private int classifyString(char[] text, int offset, int length) {
+        if (preciseNumbers && length > 0) {
+            final int number = classifyNumericText(text, offset, length);
+            if (number != ColumnState.NONE) {
+                return number;
+            }
+        }
+        return classifyText(text, offset, length);
+    }
+
+    /**
+     * classify text written as a JSON number keeping its value, or its digits when it does not fit a long
+     *
+     * @return INT, LONG or DECIMAL, NONE when the text is not a number or has a leading zero as codes like 007 do
+     */
+    private int classifyNumericText(char[] text, int offset, int length) {
+        final int end = offset + length;
+        int i = offset;
+        final boolean negative = text[i] == '-';
+        if (negative) {
+            i++;
+        }
+        // accumulated negated, so Long.MIN_VALUE fits
+        final int firstDigit = i;
+        long value = 0;
+        boolean overflow = false;
+        for (; i < end && text[i] >= '0' && text[i] <= '9'; i++) {
+            final int digit = text[i] - '0';
+            overflow |= value < (Long.MIN_VALUE + digit) / 10;
+            value = value * 10 - digit;
+        }
+        if (i == firstDigit || (i - firstDigit > 1 && text[firstDigit] == '0')) {
+            return ColumnState.NONE;
+        }
+        if (i == end && !overflow && (negative || value != Long.MIN_VALUE)) {
+            lastNumber = INTEGER;
+            lastInteger = negative ? value : -value;
+            return lastInteger >= Integer.MIN_VALUE && lastInteger <= Integer.MAX_VALUE ? ColumnState.INT : ColumnState.LONG;
+        }
+        if (i < end && text[i] == '.') {
+            final int fraction = ++i;
+            while (i < end && text[i] >= '0' && text[i] <= '9') {
+                i++;
+            }
+            if (i == fraction) {
+                return ColumnState.NONE;
+            }
+        }
+        if (i < end && (text[i] == 'e' || text[i] == 'E')) {
+            i++;
+            if (i < end && (text[i] == '+' || text[i] == '-')) {
+                i++;
+            }
+            final int exponent = i;
+            while (i < end && text[i] >= '0' && text[i] <= '9') {
+                i++;
+            }
+            if (i == exponent) {
+                return ColumnState.NONE;
+            }
+        }
+        if (i != end) {
+            return ColumnState.NONE;
+        }
+        scanDecimal(text, offset, length);
+        return ColumnState.DECIMAL;
+    }
+
+    private void observeInteger(long value) {
+        if (preciseNumbers) {
+            lastNumber = INTEGER;
+            lastInteger = value;
+        }
+    }
+
+    private void observeDecimal(BigDecimal value) {
+        if (preciseNumbers) {
+            lastNumber = DECIMAL;
+            lastScale = Math.max(value.scale(), 0);
+            lastIntegerDigits = Math.max(value.precision() - value.scale(), 0);
+        }
+    }
+
+    /**
+     * @return chars of the decimal form of value
+     */
+    private static int digits(long value) {
+        int length = value < 0 ? 2 : 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * classify a scalar by its text
+     *
+     * @param text value as text
+     * @return ColumnState type
+     */
+    static int classifyText(String text) {
+        return classifyText(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * classify a scalar by its text, without allocating
+     *
+     * @param text buffer holding the value
+     * @param offset first char of the value
+     * @param length chars in the value
+     * @return ColumnState type
+     */
+    static int classifyText(char[] text, int offset, int length) {
+        if (length <= 1) {
+            return ColumnState.CHAR;
+        } else if (isBoolean(text, offset, length)) {
+            return ColumnState.BOOLEAN;
+        }
+        final int date = DateScanner.classify(text, offset, length);
+        return date == ColumnState.NONE ? ColumnState.VARCHAR : date;
+    }
+
+    /**
+     * @return true for true or false in any case
+     */
+    static boolean isBoolean(char[] text, int offset, int length) {
+        if (length == 4) {
+            return regionMatches(text, offset, "true");
+        } else if (length == 5) {
+            return regionMatches(text, offset, "false");
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(char[] text, int offset, String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (Character.toLowerCase(text[offset + i]) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * one flattened path, created the first time it is seen
+     */
+    private final class Path {
+
+        final String name;
+        final Path owner;
+        final int id;
+        // raw field name when the parent is the root of a table
+        String key;
+        ColumnState column;
+        NestedType nested;
+        NumericRange range;
+        // how the path is reached from its parent, by raw field name or by array index
+        Path parent;
+        String rawName;
+        int index;
+        Map<String, Path> fields;
+        List<Path> items;
+
+        // arrays read into a child table
+        Path elementRoot;
+        TableState childTable;
+        int element;
+        int replaySlot = -1;
+
+        /**
+         * @param name clean column name, null for the root of a table
+         * @param owner array path whose child table the column belongs to, null for the document table
+         * @param id index in paths, -1 for the root of a table
+         */
+        Path(String name, Path owner, int id) {
+            this.name = name;
+            this.owner = owner;
+            this.id = id;
+        }
+
+        Path field(String fieldName) {
+            if (fields == null) {
+                fields = new HashMap<String, Path>();
+            }
+            Path path = fields.get(fieldName);
+            if (path == null) {
+                path = child(names.get(fieldName));
+                path.parent = this;
+                path.rawName = fieldName;
+                if (name == null) {
+                    path.key = fieldName;
+                }
+                fields.put(fieldName, path);
+            }
+            return path;
+        }
+
+        Path item(int index) {
+            if (items == null) {
+                items = new ArrayList<Path>();
+            }
+            while (items.size() <= index) {
+                final Path item = child(String.valueOf(items.size()));
+                item.parent = this;
+                item.index = items.size();
+                items.add(item);
+            }
+            return items.get(index);
+        }
+
+        /**
+         * @return raw field names from the root of the table, null when an array index is on the way
+         */
+        String[] rawPath() {
+            int depth = 0;
+            for (Path path = this; path.parent != null; path = path.parent) {
+                if (path.rawName == null) {
+                    return null;
+                }
+                depth++;
+            }
+            final String[] rawPath = new String[depth];
+            for (Path path = this; path.parent != null; path = path.parent) {
+                rawPath[--depth] = path.rawName;
+            }
+            return rawPath;
+        }
+
+        private Path child(String cleanName) {
+            final Path path = new Path(name == null ? cleanName : name + separator + cleanName, owner, paths.size());
+            paths.add(path);
+            return path;
+        }
+
+        TableState childTable() {
+            if (childTable == null) {
+                childTable = new TableState(name, owner == null ? table : owner.childTable());
+            }
+            return childTable;
+        }
+    }
+}
@@ -17,24 +17,28 @@ package com.dataflowdeveloper.processors.convertjsontoddl;
  * limitations under the License.
  */
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.sql.Date;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.nifi.annotation.behavior.InputRequirement;
+import org.apache.nifi.annotation.behavior.InputRequirement.Requirement;
 import org.apache.nifi.annotation.behavior.ReadsAttribute;
 import org.apache.nifi.annotation.behavior.ReadsAttributes;
 import org.apache.nifi.annotation.behavior.WritesAttribute;
@@ -43,36 +47,119 @@ import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.distributed.cache.client.AtomicDistributedMapCacheClient;
 import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.InputStreamCallback;
+import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
+import org.apache.nifi.processor.util.FlowFileFilters;
 import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.schema.access.SchemaNotFoundException;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.RecordReaderFactory;
+import org.apache.nifi.stream.io.ByteCountingInputStream;
 import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonParser;
 
 @Tags({"convert-json-to-ddl"})
-@CapabilityDescription("Create mostly complete SQL Table Create DDL from JSON")
+@InputRequirement(Requirement.INPUT_ALLOWED)
+@CapabilityDescription("Create mostly complete SQL Table Create DDL from JSON, or from the records of any Record Reader")
 @SeeAlso({})
 @ReadsAttributes({
         @ReadsAttribute(attribute = "tableType", description = "What type of table:   hive, mysql, oracle, postgresql, phoenix")})
-@WritesAttributes({@WritesAttribute(attribute = "ddl", description = "SQL Create Table DDL as Text")})
+@WritesAttributes({@WritesAttribute(attribute = "ddl", description = "SQL Create Table DDL as Text"),
+        @WritesAttribute(attribute = "sampledrecords", description = "Records classified in all-records mode"),
+        @WritesAttribute(attribute = "typeconfidence", description = "Per column fraction of sampled values that fit the inferred type without being widened to text"),
+        @WritesAttribute(attribute = "scannedrecords", description = "Records read before the schema was stable, when a stability window is set"),
+        @WritesAttribute(attribute = "scannedbytes", description = "Bytes of JSON content read before the schema was stable, when a stability window is set"),
+        @WritesAttribute(attribute = "inferencemetrics", description = "Bytes, records, columns, phase timings, cache hit rate and columns per type, "
+                + "when metricsAttribute is true. A schema cache hit skips inference and reports no records or columns"),
+        @WritesAttribute(attribute = "avro.schema", description = "Avro schema of the table when schemaFormat is avro or all"),
+        @WritesAttribute(attribute = "json.schema", description = "JSON Schema of the table when schemaFormat is json-schema or all")})
 public class JsonToDDLProcessor extends AbstractProcessor {
 
     private static final String FILENAME = "filename";
     public static final int PADDING_FACTOR = 12;
+    /** raw JSON keys whose clean names are kept */
+    public static final int NAME_CACHE_SIZE = 10000;
     private static final String TXT_CREATE_TABLE = "CREATE TABLE ";
     public static final String FIELD_TABLE_TYPE = "TABLE_TYPE";
     public static final String FIELD_TABLE_NAME = "TABLE_NAME";
     public static final String FIELD_PRIMARY_KEY = "PRIMARY_KEY";
+    public static final String FIELD_INFERENCE_MODE = "INFERENCE_MODE";
+    public static final String FIELD_MAX_RECORDS = "MAX_RECORDS";
+    public static final String FIELD_STABILITY_RECORDS = "STABILITY_RECORDS";
+    public static final String FIELD_STABILITY_BYTES = "STABILITY_BYTES";
+    public static final String FIELD_SAMPLING_MODE = "SAMPLING_MODE";
+    public static final String FIELD_SAMPLE_SIZE = "SAMPLE_SIZE";
+    public static final String FIELD_SAMPLE_STRIDE = "SAMPLE_STRIDE";
+    public static final String FIELD_SAMPLE_SEED = "SAMPLE_SEED";
+    public static final String FIELD_SCHEMA_CACHE_SIZE = "SCHEMA_CACHE_SIZE";
+    public static final String FIELD_BATCH_SIZE = "BATCH_SIZE";
+    public static final String FIELD_BATCH_BYTES = "BATCH_BYTES";
+    public static final String FIELD_JSON_DOCUMENT = "JSON_DOCUMENT";
+    public static final String FIELD_STRICT_DUPLICATE_DETECTION = "STRICT_DUPLICATE_DETECTION";
+    public static final String FIELD_CANONICALIZE_FIELD_NAMES = "CANONICALIZE_FIELD_NAMES";
+    public static final String FIELD_DESTINATION = "DESTINATION";
+    public static final String FIELD_FLATTEN_DEPTH = "FLATTEN_DEPTH";
+    public static final String FIELD_FLATTEN_SEPARATOR = "FLATTEN_SEPARATOR";
+    public static final String FIELD_ARRAY_POLICY = "ARRAY_POLICY";
+    public static final String FIELD_COMPLEX_TYPES = "COMPLEX_TYPES";
+    public static final String FIELD_SCHEMA_EVOLUTION = "SCHEMA_EVOLUTION";
+    public static final String FIELD_SCHEMA_STORE = "SCHEMA_STORE";
+    public static final String FIELD_SCHEMA_FORMAT = "SCHEMA_FORMAT";
+    public static final String FIELD_RECORD_READER = "RECORD_READER";
+    public static final String FIELD_NUMERIC_TYPES = "NUMERIC_TYPES";
+    public static final String FIELD_PARALLELISM = "PARALLELISM";
+    public static final String FIELD_METRICS_ATTRIBUTE = "METRICS_ATTRIBUTE";
+
+    public static final String COUNTER_CACHE_HITS = "Schema cache hits";
+    public static final String COUNTER_CACHE_MISSES = "Schema cache misses";
+    public static final String COUNTER_CACHE_EVICTIONS = "Schema cache evictions";
+
+    public static final String MODE_FIRST_OBJECT = "first-object";
+    public static final String MODE_ALL_RECORDS = "all-records";
+
+    public static final String COMPLEX_TYPES_TEXT = "text";
+    public static final String COMPLEX_TYPES_NATIVE = "native";
+
+    public static final String NUMERIC_TYPES_BASIC = "basic";
+    public static final String NUMERIC_TYPES_PRECISE = "precise";
+
+    public static final String SCHEMA_EVOLUTION_NONE = "none";
+    public static final String SCHEMA_EVOLUTION_ALTER = "alter";
+
+    public static final String SCHEMA_FORMAT_NONE = "none";
+    public static final String SCHEMA_FORMAT_ALL = "all";
+
+    /** prefix of the known schema entries in a distributed map cache */
+    public static final String SCHEMA_STORE_KEY_PREFIX = "convertjsontoddl.schema.";
+
+    /** suffix of the column holding the position of a child table row in its array */
+    public static final String POSITION_COLUMN = "index";
+
+    public static final String DESTINATION_ATTRIBUTE = "attribute";
+    public static final String DESTINATION_CONTENT = "content";
+    public static final String DESTINATION_BOTH = "both";
+    public static final String DESTINATION_PRESERVED = "original-content-preserved";
 
     public static final String FIELD_DDL = "generatedddl";
+    public static final String FIELD_SAMPLED_RECORDS = "sampledrecords";
+    public static final String FIELD_TYPE_CONFIDENCE = "typeconfidence";
+    public static final String FIELD_SCANNED_RECORDS = "scannedrecords";
+    public static final String FIELD_SCANNED_BYTES = "scannedbytes";
+    public static final String FIELD_METRICS = "inferencemetrics";
     public static final String FIELD_SUCCESS = "success";
     public static final String FIELD_FAILURE = "failure";
 
@@ -98,6 +185,160 @@ public class JsonToDDLProcessor extends AbstractProcessor {
             .displayName("primaryKey").description("A comma-seperated list of field names that identifies the Primary Key")
             .addValidator(StandardValidators.ATTRIBUTE_KEY_VALIDATOR).build();
 
+    public static final PropertyDescriptor INFERENCE_MODE = new PropertyDescriptor.Builder().name(FIELD_INFERENCE_MODE)
+            .displayName("inferenceMode")
+            .description("first-object describes the first JSON object only, all-records merges every object of a JSON array or newline-delimited JSON into one table")
+            .required(true).allowableValues(MODE_FIRST_OBJECT, MODE_ALL_RECORDS).defaultValue(MODE_FIRST_OBJECT).build();
+
+    public static final PropertyDescriptor MAX_RECORDS = new PropertyDescriptor.Builder().name(FIELD_MAX_RECORDS)
+            .displayName("maxRecords").description("Stop reading after this many records in all-records mode, 0 reads them all")
+            .required(true).defaultValue("0").addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor STABILITY_RECORDS = new PropertyDescriptor.Builder().name(FIELD_STABILITY_RECORDS)
+            .displayName("stabilityRecords")
+            .description("Stop reading in all-records mode once this many records in a row added no column and widened none, "
+                    + "the rest of the content is skipped. Columns missing only from skipped records are not nullable. "
+                    + "0 reads every record. Not applied with reservoir sampling or complexTypes native")
+            .required(true).defaultValue("0").addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor STABILITY_BYTES = new PropertyDescriptor.Builder().name(FIELD_STABILITY_BYTES)
+            .displayName("stabilityBytes")
+            .description("Stop reading in all-records mode once this much JSON content in a row added no column and widened none, e.g. 1 MB. "
+                    + "Unset means only stabilityRecords applies")
+            .required(false).addValidator(StandardValidators.DATA_SIZE_VALIDATOR).build();
+
+    public static final PropertyDescriptor SAMPLING_MODE = new PropertyDescriptor.Builder().name(FIELD_SAMPLING_MODE)
+            .displayName("samplingMode")
+            .description("Which records are classified in all-records mode: all, the first sampleSize (first-n), every sampleStride-th until sampleSize are taken (every-kth), "
+                    + "or a uniform reservoir of sampleSize records seeded with sampleSeed (reservoir). first-n and every-kth stop parsing once the sample is full")
+            .required(true).allowableValues(RecordSampler.ALL, RecordSampler.FIRST_N, RecordSampler.EVERY_KTH, RecordSampler.RESERVOIR)
+            .defaultValue(RecordSampler.ALL).build();
+
+    public static final PropertyDescriptor SAMPLE_SIZE = new PropertyDescriptor.Builder().name(FIELD_SAMPLE_SIZE)
+            .displayName("sampleSize").description("Number of records in the sample")
+            .required(true).defaultValue("1000").addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor SAMPLE_STRIDE = new PropertyDescriptor.Builder().name(FIELD_SAMPLE_STRIDE)
+            .displayName("sampleStride").description("k for every-kth sampling")
+            .required(true).defaultValue("10").addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor SAMPLE_SEED = new PropertyDescriptor.Builder().name(FIELD_SAMPLE_SEED)
+            .displayName("sampleSeed").description("Seed for reservoir sampling, so the same content always yields the same DDL")
+            .required(true).defaultValue("42").addValidator(StandardValidators.LONG_VALIDATOR).build();
+
+    public static final PropertyDescriptor SCHEMA_CACHE_SIZE = new PropertyDescriptor.Builder().name(FIELD_SCHEMA_CACHE_SIZE)
+            .displayName("schemaCacheSize")
+            .description("Maximum number of document shapes whose column definitions are cached, least recently used first out. "
+                    + "A document whose field names, token kinds and value length buckets match a cached shape skips type inference. "
+                    + "Applies to first-object mode, 0 disables the cache")
+            .required(true).defaultValue("0").addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor PARALLELISM = new PropertyDescriptor.Builder().name(FIELD_PARALLELISM)
+            .displayName("parallelism")
+            .description("Threads inferring one newline-delimited JSON FlowFile in all-records mode, each reading its own chunk of the lines. "
+                    + "The DDL is the same as with 1. Applies with samplingMode all, maxRecords 0, complexTypes text and an arrayPolicy "
+                    + "other than child-table, content of a top level array is always read by one thread")
+            .required(true).defaultValue("1").addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder().name(FIELD_BATCH_SIZE)
+            .displayName("batchSize").description("Maximum number of FlowFiles processed per session commit")
+            .required(true).defaultValue("100").addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor BATCH_BYTES = new PropertyDescriptor.Builder().name(FIELD_BATCH_BYTES)
+            .displayName("batchBytes").description("Stop adding FlowFiles to a batch once their content reaches this size, e.g. 10 MB. Unset means only batchSize applies")
+            .required(false).addValidator(StandardValidators.DATA_SIZE_VALIDATOR).build();
+
+    public static final PropertyDescriptor JSON_DOCUMENT = new PropertyDescriptor.Builder().name(FIELD_JSON_DOCUMENT)
+            .displayName("jsonDocument")
+            .description("JSON to generate DDL from when there is no incoming FlowFile. A FlowFile with this content is created "
+                    + "on each trigger that finds the queue empty. Unset means an empty queue does nothing")
+            .required(false).addValidator(StandardValidators.NON_BLANK_VALIDATOR).expressionLanguageSupported(true).build();
+
+    public static final PropertyDescriptor STRICT_DUPLICATE_DETECTION = new PropertyDescriptor.Builder().name(FIELD_STRICT_DUPLICATE_DETECTION)
+            .displayName("strictDuplicateDetection").description("Route JSON with a repeated field name in one object to failure instead of keeping the last value")
+            .required(true).allowableValues("true", "false").defaultValue("false").build();
+
+    public static final PropertyDescriptor CANONICALIZE_FIELD_NAMES = new PropertyDescriptor.Builder().name(FIELD_CANONICALIZE_FIELD_NAMES)
+            .displayName("canonicalizeFieldNames")
+            .description("Share field name Strings through the parser symbol table. Faster for repeated keys, turn off for documents with huge numbers of distinct keys")
+            .required(true).allowableValues("true", "false").defaultValue("true").build();
+
+    public static final PropertyDescriptor DESTINATION = new PropertyDescriptor.Builder().name(FIELD_DESTINATION)
+            .displayName("destination")
+            .description("Where the DDL goes: the generatedddl attribute with the content emptied (attribute), the content replacing the JSON (content), "
+                    + "both, or the attribute with the JSON content left untouched and never rewritten (original-content-preserved)")
+            .required(true).allowableValues(DESTINATION_ATTRIBUTE, DESTINATION_CONTENT, DESTINATION_BOTH, DESTINATION_PRESERVED)
+            .defaultValue(DESTINATION_PRESERVED).build();
+
+    public static final PropertyDescriptor FLATTEN_DEPTH = new PropertyDescriptor.Builder().name(FIELD_FLATTEN_DEPTH)
+            .displayName("flattenDepth")
+            .description("Levels of nested objects, and of arrays with explode-index, flattened into columns such as address_city. "
+                    + "Anything deeper becomes one JSON column, typed as the dialect long text type. 0 keeps every nested value whole")
+            .required(true).defaultValue("0").addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR).build();
+
+    public static final PropertyDescriptor FLATTEN_SEPARATOR = new PropertyDescriptor.Builder().name(FIELD_FLATTEN_SEPARATOR)
+            .displayName("flattenSeparator").description("Joins the field names of a flattened path")
+            .required(true).defaultValue("_").addValidator(StandardValidators.NON_EMPTY_VALIDATOR).build();
+
+    public static final PropertyDescriptor ARRAY_POLICY = new PropertyDescriptor.Builder().name(FIELD_ARRAY_POLICY)
+            .displayName("arrayPolicy")
+            .description("explode-index gives one column per array index within flattenDepth (tags_0, tags_1), json keeps the array as one JSON column, "
+                    + "child-table infers the array elements as a table of their own, created after the main table")
+            .required(true).allowableValues(JsonSchemaInferrer.ARRAYS_EXPLODE_INDEX, JsonSchemaInferrer.ARRAYS_JSON, JsonSchemaInferrer.ARRAYS_CHILD_TABLE)
+            .defaultValue(JsonSchemaInferrer.ARRAYS_JSON).build();
+
+    public static final PropertyDescriptor COMPLEX_TYPES = new PropertyDescriptor.Builder().name(FIELD_COMPLEX_TYPES)
+            .displayName("complexTypes")
+            .description("type of the nested values kept whole, text gives the long text or JSON type of the dialect, "
+                    + "native infers the element types: STRUCT, ARRAY and MAP for hive, typed arrays and JSONB for postgresql, "
+                    + "typed arrays for phoenix, JSON for mysql")
+            .required(true).allowableValues(COMPLEX_TYPES_TEXT, COMPLEX_TYPES_NATIVE)
+            .defaultValue(COMPLEX_TYPES_TEXT).build();
+
+    public static final PropertyDescriptor NUMERIC_TYPES = new PropertyDescriptor.Builder().name(FIELD_NUMERIC_TYPES)
+            .displayName("numericTypes")
+            .description("basic gives the integer, big integer and decimal type of the dialect, with decimals that fit an integer typed as one. "
+                    + "precise tracks the range, precision and scale of every numeric column and gives the narrowest type holding "
+                    + "all values: SMALLINT, INT, BIGINT, DECIMAL(p,s), or DOUBLE for exponent notation, floating point record values "
+                    + "and more than 38 digits. Strings holding a plain number without leading zeros count as that number. "
+                    + "The schema cache is not used when precise")
+            .required(true).allowableValues(NUMERIC_TYPES_BASIC, NUMERIC_TYPES_PRECISE)
+            .defaultValue(NUMERIC_TYPES_BASIC).build();
+
+    public static final PropertyDescriptor SCHEMA_EVOLUTION = new PropertyDescriptor.Builder().name(FIELD_SCHEMA_EVOLUTION)
+            .displayName("schemaEvolution")
+            .description("none always generates CREATE TABLE, alter remembers the columns generated for every table and once a table "
+                    + "is known generates only ALTER TABLE statements for new and widened columns, and an empty DDL when the content fits. "
+                    + "Known schemas are kept in schemaStore when it is set, otherwise in memory until NiFi restarts, and the schema cache is not used")
+            .required(true).allowableValues(SCHEMA_EVOLUTION_NONE, SCHEMA_EVOLUTION_ALTER)
+            .defaultValue(SCHEMA_EVOLUTION_NONE).build();
+
+    public static final PropertyDescriptor SCHEMA_STORE = new PropertyDescriptor.Builder().name(FIELD_SCHEMA_STORE)
+            .displayName("schemaStore")
+            .description("Distributed map cache holding the known schemas when schemaEvolution is alter, so every node of a cluster "
+                    + "merges into the same schema and agrees on column types and sizes. The cache has to support compare and set")
+            .required(false).identifiesControllerService(AtomicDistributedMapCacheClient.class).build();
+
+    public static final PropertyDescriptor SCHEMA_FORMAT = new PropertyDescriptor.Builder().name(FIELD_SCHEMA_FORMAT)
+            .displayName("schemaFormat")
+            .description("also describe the document table as an Avro schema in the avro.schema attribute, which record readers and writers "
+                    + "take as schema text, and/or as a JSON Schema in the json.schema attribute. The schema cache is not used when set")
+            .required(true).allowableValues(SCHEMA_FORMAT_NONE, AvroSchemaFormat.NAME, JsonSchemaFormat.NAME, SCHEMA_FORMAT_ALL)
+            .defaultValue(SCHEMA_FORMAT_NONE).build();
+
+    public static final PropertyDescriptor RECORD_READER = new PropertyDescriptor.Builder().name(FIELD_RECORD_READER)
+            .displayName("recordReader")
+            .description("Record reader for content that is not JSON, or JSON read with a known schema. Types are inferred from the record values "
+                    + "one record at a time, with the same inferenceMode, sampling, flattening and array policy as JSON content. "
+                    + "The schema cache is not used when set")
+            .required(false).identifiesControllerService(RecordReaderFactory.class).build();
+
+    public static final PropertyDescriptor METRICS_ATTRIBUTE = new PropertyDescriptor.Builder().name(FIELD_METRICS_ATTRIBUTE)
+            .displayName("metricsAttribute")
+            .description("Also write the metrics of each FlowFile to the inferencemetrics attribute. The processor counters "
+                    + "are kept either way")
+            .required(true).allowableValues("true", "false").defaultValue("false").build();
+
     public static final Relationship REL_SUCCESS = new Relationship.Builder().name(FIELD_SUCCESS)
             .description("Successfully extract content.").build();
 
@@ -107,6 +348,35 @@ public class JsonToDDLProcessor extends AbstractProcessor {
     private List<PropertyDescriptor> descriptors;
     private Set<Relationship> relationships;
 
+    private volatile boolean allRecords = false;
+    private volatile long maxRecords = 0;
+    private volatile long stabilityRecords = 0;
+    private volatile long stabilityBytes = 0;
+    private volatile String samplingMode = RecordSampler.ALL;
+    private volatile int sampleSize = 1000;
+    private volatile int sampleStride = 10;
+    private volatile long sampleSeed = 42L;
+    private volatile SchemaCache schemaCache;
+    private volatile JsonFactory jsonFactory = newJsonFactory(false, true);
+    private volatile String scheduledTableType;
+    private volatile SqlDialect scheduledDialect;
+    private volatile int batchSize = 100;
+    private volatile Double batchBytes;
+    private volatile String destination = DESTINATION_PRESERVED;
+    private volatile int flattenDepth = 0;
+    private volatile String flattenSeparator = "_";
+    private volatile String arrayPolicy = JsonSchemaInferrer.ARRAYS_JSON;
+    private volatile boolean nativeTypes = false;
+    private volatile boolean preciseNumbers = false;
+    private volatile SchemaStore schemaStore;
+    private volatile SchemaFormat[] schemaFormats = new SchemaFormat[0];
+    private volatile RecordReaderFactory recordReaderFactory;
+    private volatile ForkJoinPool inferencePool;
+    private volatile ParallelInferrer parallelInferrer;
+    private volatile boolean metricsAttribute = false;
+    private final LocalSchemaStore localSchemas = new LocalSchemaStore();
+    private final IdentifierCleaner identifiers = new IdentifierCleaner(NAME_CACHE_SIZE);
+
     /**
      * is a valid date
      *
@@ -166,18 +436,7 @@ public class JsonToDDLProcessor extends AbstractProcessor {
      * @return cleanName String
      */
     public static String cleanName(String dirtyName) {
-        String cleanName = "";
-
-        try {
-            cleanName = dirtyName.replaceFirst("[^A-Za-z]", "");
-            cleanName = cleanName.replaceAll("[^A-Za-z0-9_]", "");
-            cleanName = cleanName.replaceAll("\\:", "");
-            cleanName = cleanName.replaceAll("\\.", "");
-        } catch (Throwable t) {
-
-        }
-
-        return cleanName;
+        return IdentifierCleaner.clean(dirtyName);
     }
 
     /**
@@ -191,85 +450,506 @@ public class JsonToDDLProcessor extends AbstractProcessor {
      * @return String DDL SQL
      */
     public String parse(String tableName, String json, String tableType, String primaryKey) {
-        JsonFactory factory = new JsonFactory();
-
-        StringBuilder sql = new StringBuilder(256);
-        sql.append(TXT_CREATE_TABLE).append(tableName).append(" ( ");
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return parse(tableName, parser, tableType, primaryKey, new HashMap<String, String>());
+        } catch (Exception e) {
+            getLogger().error("Unable to process Json parse " + e.getLocalizedMessage());
+            return "";
+        }
+    }
 
-        ObjectMapper mapper = new ObjectMapper(factory);
-        JsonNode rootNode = null;
+    /**
+     * parse JSON to a Table DDL, streaming tokens straight off the content
+     *
+     * @param tableName
+     * @param json content stream, not closed
+     * @param tableType
+     * @param primaryKey
+     * @return String DDL SQL
+     */
+    public String parse(String tableName, InputStream json, String tableType, String primaryKey) {
         try {
-            rootNode = mapper.readTree(json);
+            return parse(tableName, json, tableType, primaryKey, new HashMap<String, String>(), new InferenceMetrics());
         } catch (Exception e) {
             getLogger().error("Unable to process Json parse " + e.getLocalizedMessage());
             return "";
         }
+    }
 
-        // Could do some type stuff like
-        // if oracle then STRING_TYPE= VARCHAR2
-        // should be in a mapping file?
+    /**
+     * parse JSON to a Table DDL, streaming tokens straight off the content
+     *
+     * @param tableName
+     * @param json content stream, not closed
+     * @param tableType
+     * @param primaryKey
+     * @param attributes receives the inference statistics attributes
+     * @param metrics receives the counts and timings
+     * @return String DDL SQL
+     * @throws IOException on unreadable or malformed JSON, or when the schema store cannot be reached
+     */
+    String parse(String tableName, InputStream json, String tableType, String primaryKey, Map<String, String> attributes,
+            InferenceMetrics metrics) throws IOException {
+        final long start = System.nanoTime();
+        final JsonSchemaInferrer inferrer = infer(json);
+        final long inferred = System.nanoTime();
+        final StringBuilder sql = new StringBuilder(256);
+        render(tableName, inferrer, inferrer.getTable().getColumns(), tableType, primaryKey, attributes, sql);
+        metrics.inferred(inferrer, inferred - start, System.nanoTime() - inferred);
+        return sql.toString();
+    }
 
-        if (rootNode != null) {
-            Iterator<Map.Entry<String, JsonNode>> fieldsIterator = rootNode.fields();
-            while (fieldsIterator.hasNext()) {
-                Map.Entry<String, JsonNode> field = fieldsIterator.next();
+    /**
+     * parse JSON to a Table DDL, appending the DDL as it is rendered rather than building a String
+     *
+     * @param tableName
+     * @param json content stream, not closed
+     * @param tableType
+     * @param primaryKey
+     * @param attributes receives the inference statistics attributes
+     * @param metrics receives the counts and timings
+     * @param ddl receives the DDL, nothing is appended when the JSON cannot be parsed
+     * @throws IOException on unreadable or malformed JSON, when the schema store cannot be reached or ddl cannot be written
+     */
+    void parse(String tableName, InputStream json, String tableType, String primaryKey, Map<String, String> attributes,
+            InferenceMetrics metrics, Appendable ddl) throws IOException {
+        final long start = System.nanoTime();
+        final JsonSchemaInferrer inferrer = infer(json);
+        final long inferred = System.nanoTime();
+        render(tableName, inferrer, inferrer.getTable().getColumns(), tableType, primaryKey, attributes, ddl);
+        metrics.inferred(inferrer, inferred - start, System.nanoTime() - inferred);
+    }
 
-                sql.append(cleanName(field.getKey()));
+    /**
+     * infer the content on the inference pool when parallel inference applies, otherwise on this thread
+     */
+    private JsonSchemaInferrer infer(InputStream json) throws IOException {
+        final ParallelInferrer parallel = parallelInferrer;
+        if (parallel != null) {
+            return parallel.infer(json, jsonFactory, new ParallelInferrer.Inferrers() {
+                @Override
+                public JsonSchemaInferrer newInferrer() {
+                    return JsonToDDLProcessor.this.newInferrer();
+                }
+            });
+        }
+        final JsonSchemaInferrer inferrer = newInferrer();
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            inferrer.infer(parser);
+        }
+        return inferrer;
+    }
 
-                if (field.getValue() != null) {
+    private String parse(String tableName, JsonParser parser, String tableType, String primaryKey,
+            Map<String, String> attributes) throws IOException {
+        final StringBuilder sql = new StringBuilder(256);
+        parse(tableName, parser, tableType, primaryKey, attributes, sql);
+        return sql.toString();
+    }
 
-                    if (field.getValue().canConvertToInt()) {
-                        sql.append(" INT, ");
-                    } else if (field.getValue().canConvertToLong()) {
-                        sql.append(" LONG, ");
-                    } else if (field.getValue().asText().length() <= 1) {
-                        sql.append(" CHAR(1), ");
-                    } else if (field.getValue().asText().equalsIgnoreCase("true") || field.getValue().asText().equalsIgnoreCase("false")) {
-                        sql.append(" BOOLEAN, ");
-                    } else {
+    /**
+     * infer the columns, then render the DDL, so nothing is appended when the JSON cannot be parsed
+     */
+    private void parse(String tableName, JsonParser parser, String tableType, String primaryKey,
+            Map<String, String> attributes, Appendable sql) throws IOException {
+        final JsonSchemaInferrer inferrer = newInferrer();
+        render(tableName, inferrer, inferrer.infer(parser), tableType, primaryKey, attributes, sql);
+    }
 
-                        boolean isADate = false;
+    /**
+     * infer from the records of a RecordReader, then render the DDL, so nothing is appended when a record cannot be read
+     *
+     * @param tableName
+     * @param reader positioned before the first record, not closed
+     * @param tableType
+     * @param primaryKey
+     * @param attributes receives the inference statistics attributes
+     * @param metrics receives the counts and timings
+     * @param sql receives the DDL
+     * @throws IOException on unreadable content or when sql cannot be written
+     * @throws MalformedRecordException on a record the reader cannot parse
+     */
+    void parse(String tableName, RecordReader reader, String tableType, String primaryKey,
+            Map<String, String> attributes, InferenceMetrics metrics, Appendable sql) throws IOException, MalformedRecordException {
+        final long start = System.nanoTime();
+        final JsonSchemaInferrer inferrer = newInferrer();
+        final Collection<ColumnState> columns = inferrer.infer(reader);
+        final long inferred = System.nanoTime();
+        render(tableName, inferrer, columns, tableType, primaryKey, attributes, sql);
+        metrics.inferred(inferrer, inferred - start, System.nanoTime() - inferred);
+    }
 
-                        try {
-                            Date date = Date.valueOf(field.getValue().asText());
-                            isADate = true;
-                            sql.append(" DATE, ");
-                        } catch (IllegalArgumentException e) {
-                            isADate = false;
-                        }
+    /**
+     * parse the content of a FlowFile with the record reader when one is set, otherwise as JSON
+     */
+    private String parse(String tableName, FlowFile flowFile, InputStream content, String tableType, String primaryKey,
+            Map<String, String> attributes, InferenceMetrics metrics) throws IOException {
+        if (recordReaderFactory == null) {
+            return parse(tableName, content, tableType, primaryKey, attributes, metrics);
+        }
+        final StringBuilder sql = new StringBuilder(256);
+        parse(tableName, flowFile, content, tableType, primaryKey, attributes, metrics, sql);
+        return sql.toString();
+    }
 
-                        if (!isADate) {
-
-                            DateValidator dateVal = new DateValidator();
-
-                            if (dateVal.validate(field.getValue().asText())) {
-                                sql.append(" DATETIME, ");
-                            } else if (isValidRFC822DateTime(field.getValue().asText())) {
-                                sql.append(" DATETIME, ");
-                            } else if (isValidDateTime(field.getValue().asText())) {
-                                sql.append(" DATETIME, ");
-                            } else if (isValidDate(field.getValue().asText())) {
-                                sql.append(" DATE, ");
-                            } else {
-                                sql.append(" VARCHAR(").append(field.getValue().asText().length() + PADDING_FACTOR)
-                                        .append("), ");
-                            }
-                        }
-                    }
-                } else {
-                    sql.append(" VARCHAR(50), ");
+    /**
+     * parse the content of a FlowFile with the record reader when one is set, otherwise as JSON,
+     * nothing is appended when the content cannot be parsed
+     *
+     * @throws ProcessException on a record the reader cannot parse
+     */
+    private void parse(String tableName, FlowFile flowFile, InputStream content, String tableType, String primaryKey,
+            Map<String, String> attributes, InferenceMetrics metrics, Appendable ddl) throws IOException {
+        final RecordReaderFactory readers = recordReaderFactory;
+        if (readers == null) {
+            parse(tableName, content, tableType, primaryKey, attributes, metrics, ddl);
+            return;
+        }
+        try (RecordReader reader = readers.createRecordReader(flowFile, content, getLogger())) {
+            final StringBuilder sql = new StringBuilder(256);
+            parse(tableName, reader, tableType, primaryKey, attributes, metrics, sql);
+            ddl.append(sql);
+        } catch (MalformedRecordException | SchemaNotFoundException e) {
+            throw new ProcessException("Unable to process records parse " + e.getLocalizedMessage(), e);
+        }
+    }
+
+    private JsonSchemaInferrer newInferrer() {
+        final RecordSampler sampler = new RecordSampler(samplingMode, sampleSize, sampleStride, sampleSeed);
+        final JsonSchemaInferrer inferrer = new JsonSchemaInferrer(allRecords, maxRecords, sampler, flattenDepth,
+                flattenSeparator, arrayPolicy, identifiers, nativeTypes, preciseNumbers);
+        inferrer.setStabilityWindow(stabilityRecords, stabilityBytes);
+        return inferrer;
+    }
+
+    /**
+     * render the DDL of the inferred tables
+     */
+    private void render(String tableName, JsonSchemaInferrer inferrer, Collection<ColumnState> columns, String tableType,
+            String primaryKey, Map<String, String> attributes, Appendable sql) throws IOException {
+        final SqlDialect dialect = dialectFor(tableType);
+
+        final String[] names = columnNames(columns, dialect, new HashSet<String>());
+        final List<String> alters = new ArrayList<String>();
+        int statements = 0;
+        if (evolve(dialect, String.valueOf(tableName), names, columns, notNull(columns, inferrer.getRecordCount(), 0), alters)) {
+            statements = appendStatements(sql, alters, statements);
+        } else {
+            statements++;
+            sql.append(ddlPrefix(dialect, tableName));
+            appendColumns(sql, dialect, columns, names, inferrer.getRecordCount());
+
+            //primary key
+            if (primaryKey != null) {
+                if (!columns.isEmpty()) {
+                    sql.append(", ");
                 }
+                sql.append(dialect.primaryKey(tableName, primaryKey)).append(" )");
+            } else {
+                // end table
+                sql.append(" ) ");
             }
         }
-        //primary key
-        if (primaryKey != null) {
-            sql.append("CONSTRAINT pk PRIMARY KEY (" + primaryKey + ") )");
-        } else {
-            // end table
-            sql.deleteCharAt(sql.length() - 2);
-            sql.append(") ");
+
+        // child tables follow their parent, named by the path of the array
+        final Map<TableState, String> tableNames = new HashMap<TableState, String>();
+        final Map<TableState, List<ColumnState>> tableKeys = new HashMap<TableState, List<ColumnState>>();
+        tableNames.put(inferrer.getTable(), String.valueOf(tableName));
+        if (primaryKey != null && !inferrer.getChildTables().isEmpty()) {
+            tableKeys.put(inferrer.getTable(), primaryKeyColumns(primaryKey, columns, names));
         }
-        return sql.toString();
+        for (TableState child : inferrer.getChildTables()) {
+            final String parentName = tableNames.get(child.getParent());
+            final String childName = parentName + flattenSeparator + child.getName();
+            tableNames.put(child, childName);
+
+            final List<ColumnState> parentKeys = tableKeys.get(child.getParent());
+            if (parentKeys == null) {
+                final String[] childNames = columnNames(child.getColumns(), dialect, new HashSet<String>());
+                if (evolve(dialect, childName, childNames, child.getColumns(),
+                        notNull(child.getColumns(), child.getRecordCount(), 0), alters)) {
+                    statements = appendStatements(sql, alters, statements);
+                    continue;
+                }
+                if (statements++ > 0) {
+                    sql.append(";\n");
+                }
+                sql.append(ddlPrefix(dialect, childName));
+                appendColumns(sql, dialect, child.getColumns(), childNames, child.getRecordCount());
+                sql.append(" )");
+                continue;
+            }
+
+            // keyed by the key of the parent row and the position of the element in its array
+            final Set<String> used = new HashSet<String>();
+            final List<ColumnState> keys = new ArrayList<ColumnState>(parentKeys.size() + 1);
+            final List<ColumnState> foreignKeys = new ArrayList<ColumnState>(parentKeys.size());
+            for (ColumnState parentKey : parentKeys) {
+                final String name = child.getParent() == inferrer.getTable()
+                        ? IdentifierCleaner.clean(String.valueOf(tableName)) + flattenSeparator + parentKey.getName()
+                        : parentKey.getName();
+                final ColumnState keyColumn = ColumnState.of(IdentifierCleaner.unique(name, used, dialect.getMaxIdentifierLength()),
+                        parentKey.getType(), parentKey.getMaxLength());
+                keyColumn.setNumericRange(parentKey.getNumericRange());
+                foreignKeys.add(keyColumn);
+            }
+            keys.addAll(foreignKeys);
+            keys.add(ColumnState.of(IdentifierCleaner.unique(child.getName() + flattenSeparator + POSITION_COLUMN, used,
+                    dialect.getMaxIdentifierLength()), ColumnState.INT, 0));
+            tableKeys.put(child, keys);
+            final String[] childNames = columnNames(child.getColumns(), dialect, used);
+
+            if (schemaStore != null) {
+                // the key columns are part of the known schema, ahead of the inferred columns
+                final List<ColumnState> all = new ArrayList<ColumnState>(keys);
+                all.addAll(child.getColumns());
+                final String[] allNames = new String[all.size()];
+                for (int i = 0; i < keys.size(); i++) {
+                    allNames[i] = keys.get(i).getName();
+                }
+                System.arraycopy(childNames, 0, allNames, keys.size(), childNames.length);
+                if (evolve(dialect, childName, allNames, all, notNull(all, child.getRecordCount(), keys.size()), alters)) {
+                    statements = appendStatements(sql, alters, statements);
+                    continue;
+                }
+            }
+
+            if (statements++ > 0) {
+                sql.append(";\n");
+            }
+            sql.append(ddlPrefix(dialect, childName));
+            for (ColumnState key : keys) {
+                sql.append(dialect.identifier(key.getName())).append(' ').append(dialect.columnType(key)).append(" NOT NULL, ");
+            }
+            appendColumns(sql, dialect, child.getColumns(), childNames, child.getRecordCount());
+            if (childNames.length > 0) {
+                sql.append(", ");
+            }
+            sql.append(dialect.primaryKey(childName, keyList(dialect, keys)));
+            final String foreignKey = dialect.foreignKey(childName, keyList(dialect, foreignKeys), parentName,
+                    keyList(dialect, parentKeys));
+            if (foreignKey != null) {
+                sql.append(", ").append(foreignKey);
+            }
+            sql.append(" )");
+        }
+
+        for (SchemaFormat format : schemaFormats) {
+            attributes.put(format.getAttribute(), format.schema(tableName, inferrer.getTable(), allRecords));
+        }
+
+        if (allRecords) {
+            attributes.put(FIELD_SAMPLED_RECORDS, String.valueOf(inferrer.getRecordCount()));
+            attributes.put(FIELD_TYPE_CONFIDENCE, confidence(columns, names));
+            if (inferrer.hasStabilityWindow()) {
+                attributes.put(FIELD_SCANNED_RECORDS, String.valueOf(inferrer.getScannedCount()));
+                if (inferrer.getScannedBytes() >= 0) {
+                    attributes.put(FIELD_SCANNED_BYTES, String.valueOf(inferrer.getScannedBytes()));
+                }
+            }
+        }
+    }
+
+    private void appendColumns(Appendable sql, SqlDialect dialect, Collection<ColumnState> columns, String[] names,
+            long recordCount) throws IOException {
+        int index = 0;
+        for (ColumnState column : columns) {
+            if (index > 0) {
+                sql.append(", ");
+            }
+            sql.append(dialect.identifier(names[index++])).append(' ').append(dialect.columnType(column));
+            if (allRecords && !column.isNullable(recordCount)) {
+                sql.append(" NOT NULL");
+            }
+        }
+    }
+
+    /**
+     * @param columns inferred columns, named with clean names
+     * @param dialect target dialect
+     * @param used lower case names already in the table, the column names are added
+     * @return column names, distinct within the table after truncation
+     */
+    private static String[] columnNames(Collection<ColumnState> columns, SqlDialect dialect, Set<String> used) {
+        final String[] names = new String[columns.size()];
+        int index = 0;
+        for (ColumnState column : columns) {
+            names[index++] = IdentifierCleaner.unique(column.getName(), used, dialect.getMaxIdentifierLength());
+        }
+        return names;
+    }
+
+    /**
+     * @param primaryKey comma separated key columns of the document table
+     * @param columns inferred columns of the document table
+     * @param names their column names
+     * @return one key column per primary key column, typed like the inferred column of the same name
+     */
+    private static List<ColumnState> primaryKeyColumns(String primaryKey, Collection<ColumnState> columns, String[] names) {
+        final List<ColumnState> keys = new ArrayList<ColumnState>();
+        for (String key : primaryKey.split(",")) {
+            final String name = key.trim();
+            ColumnState type = null;
+            int index = 0;
+            for (ColumnState column : columns) {
+                if (names[index++].equalsIgnoreCase(name)) {
+                    type = column;
+                    break;
+                }
+            }
+            // a key missing from the content is typed as a default varchar
+            if (type == null) {
+                keys.add(new ColumnState(name));
+            } else {
+                final ColumnState keyColumn = ColumnState.of(name, type.getType(), type.getMaxLength());
+                keyColumn.setNumericRange(type.getNumericRange());
+                keys.add(keyColumn);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @param value schemaFormat property value
+     * @return formats written next to the DDL
+     */
+    private static SchemaFormat[] schemaFormats(String value) {
+        if (AvroSchemaFormat.NAME.equals(value)) {
+            return new SchemaFormat[] {new AvroSchemaFormat()};
+        } else if (JsonSchemaFormat.NAME.equals(value)) {
+            return new SchemaFormat[] {new JsonSchemaFormat()};
+        } else if (SCHEMA_FORMAT_ALL.equals(value)) {
+            return new SchemaFormat[] {new AvroSchemaFormat(), new JsonSchemaFormat()};
+        }
+        return new SchemaFormat[0];
+    }
+
+    /**
+     * merge the inferred columns into the known schema of the table
+     *
+     * @param notNull per column, true when the CREATE TABLE declares it NOT NULL
+     * @param alters cleared, then receives the ALTER TABLE statements of a known table
+     * @return true when the table was known, false when it has to be created or schemas are not kept
+     */
+    private boolean evolve(SqlDialect dialect, String tableName, String[] names, Collection<ColumnState> columns,
+            boolean[] notNull, List<String> alters) throws IOException {
+        final SchemaStore store = schemaStore;
+        if (store == null) {
+            return false;
+        }
+        final String key = dialect.getName() + ":" + tableName;
+        while (true) {
+            alters.clear();
+            final KnownSchema known = store.get(key);
+            if (known == null) {
+                if (store.replace(key, null, KnownSchema.of(dialect, names, columns, notNull))) {
+                    return false;
+                }
+            } else {
+                final KnownSchema merged = known.merge(dialect, tableName, names, columns, notNull, alters);
+                if (merged == known || store.replace(key, known, merged)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param keyCount leading key columns, always NOT NULL
+     * @return per column, true when appendColumns declares it NOT NULL
+     */
+    private boolean[] notNull(Collection<ColumnState> columns, long recordCount, int keyCount) {
+        final boolean[] notNull = new boolean[columns.size()];
+        int index = 0;
+        for (ColumnState column : columns) {
+            notNull[index] = index < keyCount || (allRecords && !column.isNullable(recordCount));
+            index++;
+        }
+        return notNull;
+    }
+
+    private static int appendStatements(Appendable sql, List<String> statements, int count) throws IOException {
+        for (String statement : statements) {
+            if (count++ > 0) {
+                sql.append(";\n");
+            }
+            sql.append(statement);
+        }
+        return count;
+    }
+
+    private static String keyList(SqlDialect dialect, List<ColumnState> keys) {
+        final StringBuilder list = new StringBuilder();
+        for (ColumnState key : keys) {
+            if (list.length() > 0) {
+                list.append(", ");
+            }
+            list.append(dialect.identifier(key.getName()));
+        }
+        return list.toString();
+    }
+
+    /**
+     * JsonFactory is thread safe once configured, one instance serves every parse of a schedule
+     *
+     * @param strictDuplicateDetection fail on repeated field names
+     * @param canonicalizeFieldNames share field name Strings through the symbol table
+     * @return configured factory, never closing the streams it reads
+     */
+    public static JsonFactory newJsonFactory(boolean strictDuplicateDetection, boolean canonicalizeFieldNames) {
+        final JsonFactory factory = new JsonFactory();
+        factory.configure(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES, canonicalizeFieldNames);
+        factory.configure(JsonParser.Feature.STRICT_DUPLICATE_DETECTION, strictDuplicateDetection);
+        factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return factory;
+    }
+
+    /**
+     * @param tableType tableType property value
+     * @return dialect resolved at schedule time when the value is literal, otherwise looked up
+     */
+    SqlDialect dialectFor(String tableType) {
+        final SqlDialect dialect = scheduledDialect;
+        if (dialect != null && scheduledTableType.equals(tableType)) {
+            return dialect;
+        }
+        return SqlDialects.forName(tableType);
+    }
+
+    private static String ddlPrefix(SqlDialect dialect, String tableName) {
+        return TXT_CREATE_TABLE + dialect.identifier(String.valueOf(tableName)) + " ( ";
+    }
+
+    /**
+     * fingerprint the structure of the content without classifying any value
+     *
+     * @param json content stream, not closed
+     * @return structural fingerprint, null when the content is not readable JSON
+     */
+    Long fingerprint(InputStream json) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return SchemaCache.fingerprint(parser);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param columns inferred columns
+     * @param names column names in the same order
+     * @return name=confidence pairs, comma separated
+     */
+    private static String confidence(Collection<ColumnState> columns, String[] names) {
+        final StringBuilder text = new StringBuilder(columns.size() * 16);
+        int index = 0;
+        for (ColumnState column : columns) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(names[index++]).append('=')
+                    .append(String.format(Locale.ROOT, "%.3f", column.getConfidence()));
+        }
+        return text.toString();
     }
 
     @Override
@@ -278,6 +958,32 @@ public class JsonToDDLProcessor extends AbstractProcessor {
         descriptors.add(TABLE_TYPE);
         descriptors.add(TABLE_NAME);
         descriptors.add(PRIMARY_KEY);
+        descriptors.add(INFERENCE_MODE);
+        descriptors.add(MAX_RECORDS);
+        descriptors.add(STABILITY_RECORDS);
+        descriptors.add(STABILITY_BYTES);
+        descriptors.add(SAMPLING_MODE);
+        descriptors.add(SAMPLE_SIZE);
+        descriptors.add(SAMPLE_STRIDE);
+        descriptors.add(SAMPLE_SEED);
+        descriptors.add(SCHEMA_CACHE_SIZE);
+        descriptors.add(BATCH_SIZE);
+        descriptors.add(BATCH_BYTES);
+        descriptors.add(JSON_DOCUMENT);
+        descriptors.add(STRICT_DUPLICATE_DETECTION);
+        descriptors.add(CANONICALIZE_FIELD_NAMES);
+        descriptors.add(DESTINATION);
+        descriptors.add(FLATTEN_DEPTH);
+        descriptors.add(FLATTEN_SEPARATOR);
+        descriptors.add(ARRAY_POLICY);
+        descriptors.add(COMPLEX_TYPES);
+        descriptors.add(NUMERIC_TYPES);
+        descriptors.add(PARALLELISM);
+        descriptors.add(SCHEMA_EVOLUTION);
+        descriptors.add(SCHEMA_STORE);
+        descriptors.add(SCHEMA_FORMAT);
+        descriptors.add(RECORD_READER);
+        descriptors.add(METRICS_ATTRIBUTE);
         this.descriptors = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> relationships = new HashSet<Relationship>();
@@ -298,7 +1004,72 @@ public class JsonToDDLProcessor extends AbstractProcessor {
 
     @OnScheduled
     public void onScheduled(final ProcessContext context) {
-        return;
+        jsonFactory = newJsonFactory(context.getProperty(STRICT_DUPLICATE_DETECTION).asBoolean(),
+                context.getProperty(CANONICALIZE_FIELD_NAMES).asBoolean());
+        allRecords = MODE_ALL_RECORDS.equals(context.getProperty(INFERENCE_MODE).getValue());
+        // a literal tableType is resolved here once, an expression has to be resolved per FlowFile
+        final String tableType = context.getProperty(TABLE_TYPE).getValue();
+        if (tableType != null && !tableType.contains("${")) {
+            scheduledTableType = tableType;
+            scheduledDialect = SqlDialects.forName(tableType);
+        } else {
+            scheduledTableType = null;
+            scheduledDialect = null;
+        }
+        maxRecords = context.getProperty(MAX_RECORDS).asLong();
+        stabilityRecords = context.getProperty(STABILITY_RECORDS).asLong();
+        stabilityBytes = context.getProperty(STABILITY_BYTES).isSet()
+                ? context.getProperty(STABILITY_BYTES).asDataSize(DataUnit.B).longValue() : 0;
+        samplingMode = context.getProperty(SAMPLING_MODE).getValue();
+        sampleSize = context.getProperty(SAMPLE_SIZE).asInteger();
+        sampleStride = context.getProperty(SAMPLE_STRIDE).asInteger();
+        sampleSeed = context.getProperty(SAMPLE_SEED).asLong();
+        final int cacheSize = context.getProperty(SCHEMA_CACHE_SIZE).asInteger();
+        if (!SCHEMA_EVOLUTION_ALTER.equals(context.getProperty(SCHEMA_EVOLUTION).getValue())) {
+            schemaStore = null;
+        } else if (context.getProperty(SCHEMA_STORE).isSet()) {
+            schemaStore = new DistributedSchemaStore(context.getProperty(SCHEMA_STORE)
+                    .asControllerService(AtomicDistributedMapCacheClient.class), SCHEMA_STORE_KEY_PREFIX);
+        } else {
+            schemaStore = localSchemas;
+        }
+        schemaFormats = schemaFormats(context.getProperty(SCHEMA_FORMAT).getValue());
+        recordReaderFactory = context.getProperty(RECORD_READER).isSet()
+                ? context.getProperty(RECORD_READER).asControllerService(RecordReaderFactory.class) : null;
+        preciseNumbers = NUMERIC_TYPES_PRECISE.equals(context.getProperty(NUMERIC_TYPES).getValue());
+        // a cached DDL would skip the known schema and the schema attributes, fingerprints are taken of JSON only,
+        // and only bucket the length of numbers, not their range and scale
+        schemaCache = (cacheSize > 0 && !allRecords && schemaStore == null && schemaFormats.length == 0
+                && recordReaderFactory == null && !preciseNumbers)
+                ? new SchemaCache(cacheSize) : null;
+        batchSize = context.getProperty(BATCH_SIZE).asInteger();
+        batchBytes = context.getProperty(BATCH_BYTES).isSet() ? context.getProperty(BATCH_BYTES).asDataSize(DataUnit.B) : null;
+        destination = context.getProperty(DESTINATION).getValue();
+        flattenDepth = context.getProperty(FLATTEN_DEPTH).asInteger();
+        flattenSeparator = context.getProperty(FLATTEN_SEPARATOR).getValue();
+        arrayPolicy = context.getProperty(ARRAY_POLICY).getValue();
+        nativeTypes = COMPLEX_TYPES_NATIVE.equals(context.getProperty(COMPLEX_TYPES).getValue());
+        metricsAttribute = context.getProperty(METRICS_ATTRIBUTE).asBoolean();
+
+        // chunks merge on the document table only, their records are numbered from 0, and where
+        // the schema stabilises depends on the records before
+        final int parallelism = context.getProperty(PARALLELISM).asInteger();
+        if (parallelism > 1 && allRecords && RecordSampler.ALL.equals(samplingMode) && maxRecords <= 0 && !nativeTypes
+                && !JsonSchemaInferrer.ARRAYS_CHILD_TABLE.equals(arrayPolicy) && stabilityRecords == 0 && stabilityBytes == 0) {
+            inferencePool = new ForkJoinPool(parallelism);
+            parallelInferrer = new ParallelInferrer(inferencePool, ParallelInferrer.DEFAULT_CHUNK_BYTES);
+        } else {
+            parallelInferrer = null;
+        }
+    }
+
+    @OnStopped
+    public void onStopped() {
+        parallelInferrer = null;
+        if (inferencePool != null) {
+            inferencePool.shutdownNow();
+            inferencePool = null;
+        }
     }
 
     /**
@@ -306,43 +1077,166 @@ public class JsonToDDLProcessor extends AbstractProcessor {
      */
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
-        FlowFile flowFile = session.get();
-        if (flowFile == null) {
-            flowFile = session.create();
+        List<FlowFile> flowFiles;
+        if (batchBytes != null) {
+            flowFiles = session.get(FlowFileFilters.newSizeBasedFilter(batchBytes, DataUnit.B, batchSize));
+        } else {
+            flowFiles = session.get(batchSize);
+        }
+        if (flowFiles.isEmpty()) {
+            if (!context.getProperty(JSON_DOCUMENT).isSet()) {
+                return;
+            }
+            flowFiles = Collections.singletonList(generate(context, session));
         }
 
-        final String tableType = context.getProperty(FIELD_TABLE_TYPE).evaluateAttributeExpressions(flowFile).getValue();
-        final String filename = flowFile.getAttribute(FILENAME);
-        final String tableName = context.getProperty(FIELD_TABLE_NAME).evaluateAttributeExpressions(flowFile).getValue();
-        final String primaryKey = context.getProperty(FIELD_PRIMARY_KEY).getValue();
-        String selectedTableName = ((tableName != null) ? tableName.trim() : filename);
+        for (FlowFile flowFile : flowFiles) {
+            process(context, session, flowFile);
+        }
+        session.commit();
+    }
 
-        final HashMap<String, String> attributes = new HashMap<String, String>();
+    /**
+     * create a FlowFile holding the configured JSON document
+     */
+    private FlowFile generate(final ProcessContext context, final ProcessSession session) {
+        final byte[] json = context.getProperty(JSON_DOCUMENT).evaluateAttributeExpressions().getValue()
+                .getBytes(StandardCharsets.UTF_8);
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, new OutputStreamCallback() {
+            @Override
+            public void process(OutputStream outputStream) throws IOException {
+                outputStream.write(json);
+            }
+        });
+        session.getProvenanceReporter().create(flowFile);
+        return flowFile;
+    }
 
+    /**
+     * generate the DDL for one FlowFile and transfer it, to failure when it cannot be processed
+     */
+    private void process(final ProcessContext context, final ProcessSession session, FlowFile flowFile) {
         try {
-            final AtomicReference<Boolean> wasError = new AtomicReference<>(false);
+            final String tableType = context.getProperty(FIELD_TABLE_TYPE).evaluateAttributeExpressions(flowFile).getValue();
+            final String filename = flowFile.getAttribute(FILENAME);
+            final String tableName = context.getProperty(FIELD_TABLE_NAME).evaluateAttributeExpressions(flowFile).getValue();
+            final String primaryKey = context.getProperty(FIELD_PRIMARY_KEY).getValue();
+            String selectedTableName = ((tableName != null) ? tableName.trim() : filename);
 
-            flowFile = session.write(flowFile, new StreamCallback() {
-                @Override
-                public void process(InputStream inputStream, OutputStream outputStream) throws IOException {
-                    BufferedInputStream buffStream = new BufferedInputStream(inputStream);
-                    attributes.put(FIELD_DDL,
-                            parse(selectedTableName, IOUtils.toString(buffStream, "UTF8"), tableType, primaryKey));
-                    buffStream.close();
+            final HashMap<String, String> attributes = new HashMap<String, String>();
+            final String ddlPrefix = ddlPrefix(dialectFor(tableType), selectedTableName);
+
+            final FlowFile original = flowFile;
+            final InferenceMetrics metrics = new InferenceMetrics();
+
+            final SchemaCache cache = schemaCache;
+            final AtomicReference<SchemaCache.Key> cacheKey = new AtomicReference<>();
+            String cached = null;
+            if (cache != null) {
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(InputStream inputStream) throws IOException {
+                        final long start = System.nanoTime();
+                        final Long shape;
+                        try (ByteCountingInputStream content = new ByteCountingInputStream(inputStream)) {
+                            shape = fingerprint(content);
+                            metrics.addFingerprintBytes(content.getBytesRead());
+                        }
+                        metrics.addFingerprintNanos(System.nanoTime() - start);
+                        if (shape != null) {
+                            cacheKey.set(new SchemaCache.Key(shape, tableType, selectedTableName));
+                        }
+                    }
+                });
+                if (cacheKey.get() != null) {
+                    cached = cache.get(cacheKey.get());
+                    session.adjustCounter(cached == null ? COUNTER_CACHE_MISSES : COUNTER_CACHE_HITS, 1, false);
+                    if (cached != null) {
+                        metrics.cacheHit();
+                    }
                 }
-            });
+            }
+
+            final String destination = this.destination;
+            final boolean toContent = DESTINATION_CONTENT.equals(destination) || DESTINATION_BOTH.equals(destination);
+            final AtomicReference<String> ddl = new AtomicReference<>();
 
-            if (wasError.get()) {
-                session.transfer(flowFile, REL_FAILURE);
+            if (cached != null) {
+                ddl.set(ddlPrefix + cached);
+                if (toContent || DESTINATION_ATTRIBUTE.equals(destination)) {
+                    flowFile = session.write(flowFile, new OutputStreamCallback() {
+                        @Override
+                        public void process(OutputStream outputStream) throws IOException {
+                            if (toContent) {
+                                outputStream.write(ddl.get().getBytes(StandardCharsets.UTF_8));
+                            }
+                        }
+                    });
+                }
+            } else if (DESTINATION_PRESERVED.equals(destination)) {
+                // read only, the content claim is left as it is
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(InputStream inputStream) throws IOException {
+                        try (ByteCountingInputStream content = new ByteCountingInputStream(inputStream)) {
+                            ddl.set(parse(selectedTableName, original, content, tableType, primaryKey, attributes, metrics));
+                            metrics.addBytesRead(content.getBytesRead());
+                        }
+                    }
+                });
+            } else if (DESTINATION_CONTENT.equals(destination) && cacheKey.get() == null) {
+                // nothing needs the DDL as a String, render it straight into the new content
+                flowFile = session.write(flowFile, new StreamCallback() {
+                    @Override
+                    public void process(InputStream inputStream, OutputStream outputStream) throws IOException {
+                        final Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+                        try (ByteCountingInputStream content = new ByteCountingInputStream(inputStream)) {
+                            parse(selectedTableName, original, content, tableType, primaryKey, attributes, metrics, writer);
+                            metrics.addBytesRead(content.getBytesRead());
+                        }
+                        writer.flush();
+                    }
+                });
             } else {
-                flowFile = session.putAllAttributes(flowFile, attributes);
-                session.transfer(flowFile, REL_SUCCESS);
+                flowFile = session.write(flowFile, new StreamCallback() {
+                    @Override
+                    public void process(InputStream inputStream, OutputStream outputStream) throws IOException {
+                        try (ByteCountingInputStream content = new ByteCountingInputStream(inputStream)) {
+                            ddl.set(parse(selectedTableName, original, content, tableType, primaryKey, attributes, metrics));
+                            metrics.addBytesRead(content.getBytesRead());
+                        }
+                        if (toContent) {
+                            outputStream.write(ddl.get().getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                });
             }
-            session.commit();
-        } catch (final Throwable t) {
-            getLogger().error("Unable to process Json JsonToDDLProcessor file " + t.getLocalizedMessage());
-            getLogger().error("{} failed to process due to {}; rolling back session", new Object[]{this, t});
-            throw t;
+
+            if (cached == null && cacheKey.get() != null && ddl.get().startsWith(ddlPrefix)) {
+                if (cache.put(cacheKey.get(), ddl.get().substring(ddlPrefix.length()))) {
+                    session.adjustCounter(COUNTER_CACHE_EVICTIONS, 1, false);
+                }
+            }
+
+            if (!DESTINATION_CONTENT.equals(destination)) {
+                attributes.put(FIELD_DDL, ddl.get());
+            }
+            if (toContent) {
+                attributes.put(CoreAttributes.MIME_TYPE.key(), "text/plain");
+            }
+            metrics.adjustCounters(session);
+            if (metricsAttribute) {
+                attributes.put(FIELD_METRICS, metrics.toAttribute(cache));
+            }
+
+            flowFile = session.putAllAttributes(flowFile, attributes);
+            session.transfer(flowFile, REL_SUCCESS);
+        } catch (final ProcessException e) {
+            // flowFile is the latest version, a failed read or write leaves it as it was
+            getLogger().error("Unable to process Json JsonToDDLProcessor file " + e.getLocalizedMessage());
+            getLogger().error("{} failed to process {} due to {}; routing to failure", new Object[]{this, flowFile, e});
+            session.transfer(flowFile, REL_FAILURE);
         }
     }
 }
@@ -0,0 +1,315 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The columns already generated for one table, immutable and indexed by lower case name,
+ * so a new inference is compared against it in O(columns) without reading any DDL back.
+ */
+public class KnownSchema {
+
+    private static final int ENCODING_VERSION = 3;
+
+    private final String[] names;
+    private final int[] types;
+    private final int[] lengths;
+    private final String[] sqlTypes;
+    private final NumericRange[] ranges;
+    private final boolean[] notNull;
+    private final Map<String, Integer> index;
+
+    /**
+     * @param names column names
+     * @param types ColumnState type per column
+     * @param lengths longest value per column
+     * @param sqlTypes SQL type generated per column
+     */
+    public KnownSchema(String[] names, int[] types, int[] lengths, String[] sqlTypes) {
+        this(names, types, lengths, sqlTypes, new NumericRange[names.length]);
+    }
+
+    /**
+     * @param names column names
+     * @param types ColumnState type per column
+     * @param lengths longest value per column
+     * @param sqlTypes SQL type generated per column
+     * @param ranges numeric range per column, null entries for columns typed without one
+     */
+    public KnownSchema(String[] names, int[] types, int[] lengths, String[] sqlTypes, NumericRange[] ranges) {
+        this(names, types, lengths, sqlTypes, ranges, new boolean[names.length]);
+    }
+
+    /**
+     * @param names column names
+     * @param types ColumnState type per column
+     * @param lengths longest value per column
+     * @param sqlTypes SQL type generated per column
+     * @param ranges numeric range per column, null entries for columns typed without one
+     * @param notNull per column, true when it was declared NOT NULL
+     */
+    public KnownSchema(String[] names, int[] types, int[] lengths, String[] sqlTypes, NumericRange[] ranges,
+            boolean[] notNull) {
+        this.names = names;
+        this.types = types;
+        this.lengths = lengths;
+        this.sqlTypes = sqlTypes;
+        this.ranges = ranges;
+        this.notNull = notNull;
+        this.index = new HashMap<String, Integer>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i].toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /**
+     * @param dialect dialect the table was created for
+     * @param names column names
+     * @param columns inferred columns, in the order of names
+     * @param notNull per column, true when it is declared NOT NULL
+     * @return schema of a table created with these columns
+     */
+    public static KnownSchema of(SqlDialect dialect, String[] names, Collection<ColumnState> columns, boolean[] notNull) {
+        final int[] types = new int[names.length];
+        final int[] lengths = new int[names.length];
+        final String[] sqlTypes = new String[names.length];
+        final NumericRange[] ranges = new NumericRange[names.length];
+        int i = 0;
+        for (ColumnState column : columns) {
+            types[i] = column.getType();
+            lengths[i] = column.getMaxLength();
+            ranges[i] = column.getNumericRange();
+            sqlTypes[i++] = dialect.columnType(column);
+        }
+        return new KnownSchema(names.clone(), types, lengths, sqlTypes, ranges, notNull.clone());
+    }
+
+    /**
+     * merge a new inference, adding new columns, widening the type of known columns and letting
+     * NOT NULL columns hold nulls once the inference sees them null or lacks them. Known columns
+     * missing from the inference are kept, types never narrow, and complex types keep their
+     * known definition.
+     *
+     * @param dialect dialect the table was created for
+     * @param tableName table name
+     * @param names column names of the inference
+     * @param columns inferred columns, in the order of names
+     * @param notNull per inferred column, true when the inference would declare it NOT NULL
+     * @param statements receives one ALTER TABLE statement per added, widened or relaxed column
+     * @return merged schema, this when nothing changed
+     */
+    public KnownSchema merge(SqlDialect dialect, String tableName, String[] names, Collection<ColumnState> columns,
+            boolean[] notNull, List<String> statements) {
+        final int capacity = this.names.length + columns.size();
+        final String[] mergedNames = Arrays.copyOf(this.names, capacity);
+        final int[] mergedTypes = Arrays.copyOf(this.types, capacity);
+        final int[] mergedLengths = Arrays.copyOf(this.lengths, capacity);
+        final String[] mergedSqlTypes = Arrays.copyOf(this.sqlTypes, capacity);
+        final NumericRange[] mergedRanges = Arrays.copyOf(this.ranges, capacity);
+        final boolean[] mergedNotNull = Arrays.copyOf(this.notNull, capacity);
+        final boolean[] seen = new boolean[this.names.length];
+        boolean changed = false;
+        int size = this.names.length;
+
+        int i = 0;
+        for (ColumnState column : columns) {
+            final int inferred = i++;
+            final String name = names[inferred];
+            final Integer known = index.get(name.toLowerCase(Locale.ROOT));
+            if (known == null) {
+                // existing rows hold nulls, so an added column is never NOT NULL
+                final int position = size++;
+                mergedNames[position] = name;
+                mergedTypes[position] = column.getType();
+                mergedLengths[position] = column.getMaxLength();
+                mergedRanges[position] = column.getNumericRange();
+                mergedSqlTypes[position] = dialect.columnType(column);
+                mergedNotNull[position] = false;
+                statements.add(dialect.addColumn(tableName, dialect.identifier(name), mergedSqlTypes[position]));
+                changed = true;
+                continue;
+            }
+
+            final int position = known;
+            seen[position] = true;
+            final int type = TypeLattice.join(types[position], column.getType());
+            final int length = Math.max(lengths[position], column.getMaxLength());
+            final NumericRange range = NumericRange.union(ranges[position], column.getNumericRange());
+            if (type != types[position] || (length != lengths[position] && type != ColumnState.JSON)
+                    || (range != null && !range.equals(ranges[position]))) {
+                final ColumnState merged = ColumnState.of(name, type, length);
+                merged.setNumericRange(range);
+                final String sqlType = dialect.columnType(merged);
+                // the database cannot change a column type when there is no statement, the known type stays
+                final String statement = sqlType.equals(sqlTypes[position]) ? null
+                        : dialect.alterColumnType(tableName, dialect.identifier(this.names[position]), sqlType);
+                if (statement != null) {
+                    statements.add(statement);
+                    mergedTypes[position] = type;
+                    mergedLengths[position] = length;
+                    mergedSqlTypes[position] = sqlType;
+                    mergedRanges[position] = range;
+                    changed = true;
+                }
+            }
+            if (this.notNull[position] && !notNull[inferred]) {
+                changed |= dropNotNull(dialect, tableName, position, mergedSqlTypes[position], mergedNotNull, statements);
+            }
+        }
+
+        for (int position = 0; position < seen.length; position++) {
+            if (!seen[position] && this.notNull[position]) {
+                changed |= dropNotNull(dialect, tableName, position, mergedSqlTypes[position], mergedNotNull, statements);
+            }
+        }
+
+        if (!changed) {
+            return this;
+        }
+        return new KnownSchema(Arrays.copyOf(mergedNames, size), Arrays.copyOf(mergedTypes, size),
+                Arrays.copyOf(mergedLengths, size), Arrays.copyOf(mergedSqlTypes, size), Arrays.copyOf(mergedRanges, size),
+                Arrays.copyOf(mergedNotNull, size));
+    }
+
+    /**
+     * @return true when the column now holds nulls, false when the database cannot change it
+     */
+    private boolean dropNotNull(SqlDialect dialect, String tableName, int position, String sqlType, boolean[] mergedNotNull,
+            List<String> statements) {
+        final String statement = dialect.dropNotNull(tableName, dialect.identifier(names[position]), sqlType);
+        if (statement == null) {
+            return false;
+        }
+        statements.add(statement);
+        mergedNotNull[position] = false;
+        return true;
+    }
+
+    /**
+     * @return compact binary form, for stores shared between nodes
+     */
+    public byte[] encode() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + names.length * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ENCODING_VERSION);
+            out.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeByte(types[i]);
+                out.writeInt(lengths[i]);
+                out.writeUTF(sqlTypes[i]);
+                out.writeBoolean(ranges[i] != null);
+                if (ranges[i] != null) {
+                    ranges[i].write(out);
+                }
+                out.writeBoolean(notNull[i]);
+            }
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param encoded bytes written by encode
+     * @return decoded schema
+     * @throws IOException when the bytes are not an encoded schema
+     */
+    public static KnownSchema decode(byte[] encoded) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            final int version = in.readUnsignedByte();
+            // version 1 had no numeric ranges, version 2 no NOT NULL flags
+            if (version < 1 || version > ENCODING_VERSION) {
+                throw new IOException("Unknown schema encoding version " + version);
+            }
+            final int size = in.readInt();
+            final String[] names = new String[size];
+            final int[] types = new int[size];
+            final int[] lengths = new int[size];
+            final String[] sqlTypes = new String[size];
+            final NumericRange[] ranges = new NumericRange[size];
+            final boolean[] notNull = new boolean[size];
+            for (int i = 0; i < size; i++) {
+                names[i] = in.readUTF();
+                types[i] = in.readUnsignedByte();
+                lengths[i] = in.readInt();
+                sqlTypes[i] = in.readUTF();
+                if (version > 1 && in.readBoolean()) {
+                    ranges[i] = NumericRange.read(in);
+                }
+                notNull[i] = version > 2 && in.readBoolean();
+            }
+            return new KnownSchema(names, types, lengths, sqlTypes, ranges, notNull);
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int column) {
+        return names[column];
+    }
+
+    public int getType(int column) {
+        return types[column];
+    }
+
+    public int getMaxLength(int column) {
+        return lengths[column];
+    }
+
+    public String getSqlType(int column) {
+        return sqlTypes[column];
+    }
+
+    /**
+     * @return numeric range of the column, null when typed without one
+     */
+    public NumericRange getNumericRange(int column) {
+        return ranges[column];
+    }
+
+    /**
+     * @return true when the column is declared NOT NULL
+     */
+    public boolean isNotNull(int column) {
+        return notNull[column];
+    }
+
+    /**
+     * @param name column name
+     * @return position of the column ignoring case, -1 when unknown
+     */
+    public int indexOf(String name) {
+        final Integer position = index.get(name.toLowerCase(Locale.ROOT));
+        return position == null ? -1 : position;
+    }
+}
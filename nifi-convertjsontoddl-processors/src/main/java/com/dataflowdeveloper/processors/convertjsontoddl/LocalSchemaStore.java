@@ -0,0 +1,46 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SchemaStore held in memory by one processor, known schemas last until NiFi restarts.
+ */
+public class LocalSchemaStore implements SchemaStore {
+
+    private final ConcurrentMap<String, KnownSchema> schemas = new ConcurrentHashMap<String, KnownSchema>();
+
+    @Override
+    public KnownSchema get(String table) {
+        return schemas.get(table);
+    }
+
+    @Override
+    public boolean replace(String table, KnownSchema expected, KnownSchema updated) {
+        if (expected == null) {
+            return schemas.putIfAbsent(table, updated) == null;
+        }
+        return schemas.replace(table, expected, updated);
+    }
+
+    public int size() {
+        return schemas.size();
+    }
+}
@@ -0,0 +1,123 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through read only memory mappings of consecutive regions, so a byte parser
+ * copies its input straight from the page cache with no read() system call per buffer.
+ * A mapping holds at most Integer.MAX_VALUE bytes, larger files are mapped one region at a time.
+ */
+public class MappedInputStream extends InputStream {
+
+    /** bytes mapped at once */
+    public static final int DEFAULT_REGION_BYTES = 256 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int regionBytes;
+    private long regionStart;
+    private MappedByteBuffer region;
+
+    /**
+     * @param file regular file to read
+     * @throws IOException when the file cannot be opened
+     */
+    public MappedInputStream(File file) throws IOException {
+        this(file, DEFAULT_REGION_BYTES);
+    }
+
+    /**
+     * @param file regular file to read
+     * @param regionBytes bytes mapped at once
+     * @throws IOException when the file cannot be opened
+     */
+    public MappedInputStream(File file, int regionBytes) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionBytes = regionBytes;
+    }
+
+    /**
+     * @return the mapped region holding the next byte, null at the end of the file
+     */
+    private MappedByteBuffer region() throws IOException {
+        if (region != null && region.hasRemaining()) {
+            return region;
+        }
+        final long start = region == null ? 0 : regionStart + region.capacity();
+        if (start >= size) {
+            return null;
+        }
+        regionStart = start;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionBytes, size - start));
+        return region;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final MappedByteBuffer buffer = region();
+        return buffer == null ? -1 : buffer.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        final MappedByteBuffer buffer = region();
+        if (buffer == null) {
+            return -1;
+        }
+        final int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        MappedByteBuffer buffer;
+        while (skipped < count && (buffer = region()) != null) {
+            final int step = (int) Math.min(count - skipped, buffer.remaining());
+            buffer.position(buffer.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return region == null ? (int) Math.min(size, Integer.MAX_VALUE) : region.remaining();
+    }
+
+    /**
+     * the mappings stay valid until they are garbage collected, closing only releases the file
+     */
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+}
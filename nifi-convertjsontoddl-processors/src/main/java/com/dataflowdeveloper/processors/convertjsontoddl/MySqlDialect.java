@@ -0,0 +1,58 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Set;
+
+/**
+ * MySQL, VARCHAR is limited to 16383 characters so that utf8mb4 rows stay under 65535 bytes.
+ */
+public class MySqlDialect extends AbstractSqlDialect {
+
+    private static final Set<String> RESERVED = reserved("ADD", "ANALYZE", "BEFORE", "BIGINT", "BLOB", "BOTH",
+            "CALL", "CASCADE", "CHANGE", "CHAR", "CHARACTER", "CONDITION", "CONTINUE", "CONVERT", "DATABASE",
+            "DATABASES", "DEC", "DECIMAL", "DECLARE", "DELAYED", "DESCRIBE", "DIV", "DOUBLE", "DUAL", "EACH",
+            "ELSEIF", "ENCLOSED", "ESCAPED", "EXIT", "EXPLAIN", "FLOAT", "FORCE", "FULLTEXT", "GROUPS", "IF",
+            "IGNORE", "INDEX", "INFILE", "INT", "INTEGER", "INTERVAL", "ITERATE", "KEY", "KEYS", "KILL", "LEADING",
+            "LEAVE", "LIMIT", "LINES", "LOAD", "LOCK", "LONG", "LOOP", "MATCH", "MOD", "NATURAL", "NUMERIC",
+            "OPTION", "OUT", "OVER", "PROCEDURE", "PURGE", "RANGE", "RANK", "READ", "REAL", "REGEXP", "RELEASE",
+            "RENAME", "REPEAT", "REPLACE", "REQUIRE", "RESTRICT", "RETURN", "REVOKE", "RLIKE", "ROW", "ROWS",
+            "SCHEMA", "SEPARATOR", "SHOW", "SMALLINT", "SPATIAL", "SQL", "STARTING", "TERMINATED", "TINYINT",
+            "TRAILING", "TRIGGER", "UNDO", "UNLOCK", "UNSIGNED", "USAGE", "USE", "VARCHAR", "WHILE", "WINDOW",
+            "WRITE", "XOR", "ZEROFILL");
+
+    public MySqlDialect() {
+        super("mysql", types("CHAR(1)", "BOOLEAN", "INT", "BIGINT", "DECIMAL(38,10)", "DATE", "DATETIME"),
+                "VARCHAR", 16383, "LONGTEXT", '`', 64, RESERVED);
+    }
+
+    @Override
+    public String alterColumnType(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " MODIFY COLUMN " + column + " " + type;
+    }
+
+    @Override
+    public String dropNotNull(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " MODIFY COLUMN " + column + " " + type + " NULL";
+    }
+
+    @Override
+    protected String complexType(NestedType nested) {
+        return "JSON";
+    }
+}
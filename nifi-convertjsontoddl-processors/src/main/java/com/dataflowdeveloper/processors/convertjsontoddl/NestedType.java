@@ -0,0 +1,247 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Type tree of a nested value kept whole, for dialects with native complex types.
+ * Every value seen at the same place is merged into the same node in place, so a tree
+ * only grows with the distinct structure, not with the number of values or records.
+ *
+ * Objects with more than MAX_STRUCT_FIELDS distinct keys become a MAP of the merged
+ * value types, and a node that cannot be described within the node budget, or holds
+ * values of incompatible shapes, becomes JSON.
+ */
+public class NestedType {
+
+    public static final int NONE = 0;
+    public static final int SCALAR = 1;
+    public static final int STRUCT = 2;
+    public static final int ARRAY = 3;
+    public static final int MAP = 4;
+    public static final int JSON = 5;
+
+    /** distinct keys of a STRUCT before it becomes a MAP */
+    public static final int MAX_STRUCT_FIELDS = 128;
+    /** nodes per inferred document before new structure is kept as JSON */
+    public static final int MAX_NODES = 4096;
+
+    private int kind = NONE;
+    private int scalarType = ColumnState.NONE;
+    private int maxLength;
+    private Map<String, NestedType> fields;
+    private NestedType element;
+
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * @return ColumnState type of a SCALAR
+     */
+    public int getScalarType() {
+        return scalarType;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * @return fields of a STRUCT by raw key, in order of first appearance
+     */
+    public Map<String, NestedType> getFields() {
+        return fields == null ? Collections.<String, NestedType>emptyMap() : Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * @return element type of an ARRAY, value type of a MAP
+     */
+    public NestedType getElement() {
+        return element;
+    }
+
+    /**
+     * merge one scalar value
+     *
+     * @param type ColumnState type, NONE for a null
+     * @param length text length
+     */
+    void observe(int type, int length) {
+        if (type == ColumnState.NONE || kind == JSON) {
+            return;
+        } else if (kind == NONE) {
+            kind = SCALAR;
+        } else if (kind != SCALAR) {
+            toJson();
+            return;
+        }
+        scalarType = TypeLattice.join(scalarType, type);
+        maxLength = Math.max(maxLength, length);
+    }
+
+    /**
+     * @param expected STRUCT or ARRAY, the container about to be read
+     * @return true when the container can be merged into this node, otherwise the node is JSON
+     */
+    boolean begin(int expected) {
+        if (kind == NONE) {
+            kind = expected;
+        } else if (!(kind == expected || (kind == MAP && expected == STRUCT))) {
+            toJson();
+        }
+        return kind != JSON;
+    }
+
+    /**
+     * @param key raw key of a STRUCT or MAP entry
+     * @param budget node budget, one is taken for a new node
+     * @return node the value of the key merges into, null when this node became JSON
+     */
+    NestedType field(String key, int[] budget) {
+        if (kind == JSON) {
+            return null;
+        } else if (kind == MAP) {
+            return element;
+        }
+        NestedType field = fields == null ? null : fields.get(key);
+        if (field == null) {
+            if (fields != null && fields.size() >= MAX_STRUCT_FIELDS) {
+                toMap();
+                return element;
+            }
+            field = newNode(budget);
+            if (field == null) {
+                toJson();
+                return null;
+            }
+            if (fields == null) {
+                fields = new LinkedHashMap<String, NestedType>();
+            }
+            fields.put(key, field);
+        }
+        return field;
+    }
+
+    /**
+     * @param budget node budget, one is taken for a new node
+     * @return node the elements of an ARRAY merge into, null when this node became JSON
+     */
+    NestedType element(int[] budget) {
+        if (kind == JSON) {
+            return null;
+        } else if (element == null) {
+            element = newNode(budget);
+            if (element == null) {
+                toJson();
+            }
+        }
+        return element;
+    }
+
+    /**
+     * merge another tree into this one, copying what it adds so the trees stay independent.
+     * A STRUCT and a MAP merge to a MAP whichever side each is on
+     */
+    void merge(NestedType other) {
+        if (other.kind == NONE || kind == JSON) {
+            return;
+        } else if (kind == NONE) {
+            kind = other.kind;
+            scalarType = other.scalarType;
+            maxLength = other.maxLength;
+            if (other.fields != null) {
+                fields = new LinkedHashMap<String, NestedType>();
+                for (Map.Entry<String, NestedType> entry : other.fields.entrySet()) {
+                    fields.put(entry.getKey(), entry.getValue().copy());
+                }
+            }
+            element = other.element == null ? null : other.element.copy();
+            return;
+        }
+        if (kind == STRUCT && other.kind == MAP) {
+            toMap();
+        }
+        if (other.kind == JSON || !(kind == other.kind || (kind == MAP && other.kind == STRUCT))) {
+            toJson();
+        } else if (kind == SCALAR) {
+            scalarType = TypeLattice.join(scalarType, other.scalarType);
+            maxLength = Math.max(maxLength, other.maxLength);
+        } else if (kind == STRUCT) {
+            if (fields == null) {
+                fields = new LinkedHashMap<String, NestedType>();
+            }
+            for (Map.Entry<String, NestedType> entry : other.getFields().entrySet()) {
+                final NestedType field = kind == MAP ? element : fields.get(entry.getKey());
+                if (field != null) {
+                    field.merge(entry.getValue());
+                } else if (fields.size() < MAX_STRUCT_FIELDS) {
+                    fields.put(entry.getKey(), entry.getValue().copy());
+                } else {
+                    toMap();
+                    element.merge(entry.getValue());
+                }
+            }
+        } else if (kind == MAP && other.kind == STRUCT) {
+            for (NestedType field : other.getFields().values()) {
+                element.merge(field);
+            }
+        } else if (other.element != null) {
+            if (element == null) {
+                element = other.element.copy();
+            } else {
+                element.merge(other.element);
+            }
+        }
+    }
+
+    private NestedType copy() {
+        final NestedType copy = new NestedType();
+        copy.merge(this);
+        return copy;
+    }
+
+    private void toMap() {
+        final NestedType value = new NestedType();
+        if (fields != null) {
+            for (NestedType field : fields.values()) {
+                value.merge(field);
+            }
+        }
+        kind = MAP;
+        fields = null;
+        element = value;
+    }
+
+    private void toJson() {
+        kind = JSON;
+        fields = null;
+        element = null;
+    }
+
+    private static NestedType newNode(int[] budget) {
+        if (budget[0] <= 0) {
+            return null;
+        }
+        budget[0]--;
+        return new NestedType();
+    }
+}
@@ -0,0 +1,213 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Range, precision and scale of the numbers of one column, kept in primitives so a value
+ * costs a few comparisons. Integers keep their exact range, decimals the most digits seen
+ * on either side of the point, and numbers in exponent notation or floating point values
+ * mark the column approximate. Ranges only grow, so merging is order independent.
+ */
+public class NumericRange {
+
+    /** most digits of an exact decimal in every supported database */
+    public static final int MAX_PRECISION = 38;
+
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private int integerDigits;
+    private int scale;
+    private boolean approximate;
+
+    /**
+     * record an integer that fits a long
+     *
+     * @param value integer value
+     * @return true when the value changed the numeric type the range maps to
+     */
+    boolean observeInteger(long value) {
+        final boolean wasShort = isShort();
+        final int before = integerDigits;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        final int digits = digits(value);
+        if (digits > integerDigits) {
+            integerDigits = digits;
+        }
+        return integerDigits != before || isShort() != wasShort;
+    }
+
+    /**
+     * record an exact decimal, or an integer too large for a long
+     *
+     * @param integerDigits digits before the point
+     * @param scale digits after the point
+     * @return true when the value changed the numeric type the range maps to
+     */
+    boolean observeDecimal(int integerDigits, int scale) {
+        boolean widened = false;
+        if (integerDigits > this.integerDigits) {
+            this.integerDigits = integerDigits;
+            widened = true;
+        }
+        if (scale > this.scale) {
+            this.scale = scale;
+            widened = true;
+        }
+        return widened;
+    }
+
+    /**
+     * record a value only a floating point type holds
+     *
+     * @return true when no such value was recorded before
+     */
+    boolean observeApproximate() {
+        final boolean widened = !approximate;
+        approximate = true;
+        return widened;
+    }
+
+    /**
+     * widen this range to also hold every value of other
+     *
+     * @param other range to merge in
+     */
+    void merge(NumericRange other) {
+        if (other.min < min) {
+            min = other.min;
+        }
+        if (other.max > max) {
+            max = other.max;
+        }
+        observeDecimal(other.integerDigits, other.scale);
+        approximate |= other.approximate;
+    }
+
+    /**
+     * @param a range or null
+     * @param b range or null
+     * @return a range holding the values of both, a or b itself when the other is null
+     */
+    static NumericRange union(NumericRange a, NumericRange b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        final NumericRange union = new NumericRange();
+        union.merge(a);
+        union.merge(b);
+        return union;
+    }
+
+    /**
+     * @return smallest integer seen, Long.MAX_VALUE when none was
+     */
+    public long getMin() {
+        return min;
+    }
+
+    /**
+     * @return largest integer seen, Long.MIN_VALUE when none was
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return true when integers were seen and all of them fit 16 bits
+     */
+    public boolean isShort() {
+        return min <= max && min >= Short.MIN_VALUE && max <= Short.MAX_VALUE;
+    }
+
+    public int getIntegerDigits() {
+        return integerDigits;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * @return digits of the widest value, at least 1
+     */
+    public int getPrecision() {
+        return Math.max(integerDigits + scale, 1);
+    }
+
+    /**
+     * @return true when an exact decimal type cannot hold every value
+     */
+    public boolean isApproximate() {
+        return approximate || getPrecision() > MAX_PRECISION;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeShort(integerDigits);
+        out.writeShort(scale);
+        out.writeBoolean(approximate);
+    }
+
+    static NumericRange read(DataInput in) throws IOException {
+        final NumericRange range = new NumericRange();
+        range.min = in.readLong();
+        range.max = in.readLong();
+        range.integerDigits = in.readUnsignedShort();
+        range.scale = in.readUnsignedShort();
+        range.approximate = in.readBoolean();
+        return range;
+    }
+
+    /**
+     * @return digits of value, without the sign
+     */
+    static int digits(long value) {
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof NumericRange)) {
+            return false;
+        }
+        final NumericRange range = (NumericRange) other;
+        return min == range.min && max == range.max && integerDigits == range.integerDigits
+                && scale == range.scale && approximate == range.approximate;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (min * 31 + max) * 31 + (integerDigits * 31 + scale) * 2 + (approximate ? 1 : 0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Set;
+
+/**
+ * Oracle, which has no SQL BOOLEAN before 23c and limits VARCHAR2 to 4000 bytes by default.
+ */
+public class OracleDialect extends AbstractSqlDialect {
+
+    private static final Set<String> RESERVED = reserved("ACCESS", "ADD", "AUDIT", "CHAR", "CLUSTER", "COMMENT",
+            "COMPRESS", "CONNECT", "DATE", "DECIMAL", "EXCLUSIVE", "FILE", "FLOAT", "IDENTIFIED", "IMMEDIATE",
+            "INCREMENT", "INDEX", "INITIAL", "INTEGER", "LEVEL", "LOCK", "LONG", "MAXEXTENTS", "MINUS", "MLSLABEL",
+            "MODE", "MODIFY", "NOAUDIT", "NOCOMPRESS", "NOWAIT", "NUMBER", "OFFLINE", "ONLINE", "OPTION", "PCTFREE",
+            "PRIOR", "PUBLIC", "RAW", "RENAME", "RESOURCE", "REVOKE", "ROW", "ROWID", "ROWNUM", "ROWS", "SESSION",
+            "SHARE", "SIZE", "SMALLINT", "START", "SUCCESSFUL", "SYNONYM", "SYSDATE", "TRIGGER", "UID", "VALIDATE",
+            "VARCHAR", "VARCHAR2", "VIEW", "WHENEVER");
+
+    public OracleDialect() {
+        super("oracle", types("CHAR(1)", "NUMBER(1)", "NUMBER(10)", "NUMBER(19)", "NUMBER(38,10)", "DATE", "TIMESTAMP"),
+                "VARCHAR2", 4000, "CLOB", '"', 30, RESERVED);
+    }
+
+    @Override
+    protected String smallIntType() {
+        return "NUMBER(5)";
+    }
+
+    @Override
+    protected String doubleType() {
+        return "BINARY_DOUBLE";
+    }
+
+    @Override
+    protected String decimalType(int precision, int scale) {
+        return "NUMBER(" + precision + "," + scale + ")";
+    }
+
+    @Override
+    public String addColumn(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " ADD (" + column + " " + type + ")";
+    }
+
+    @Override
+    public String alterColumnType(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " MODIFY (" + column + " " + type + ")";
+    }
+
+    @Override
+    public String dropNotNull(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " MODIFY (" + column + " NULL)";
+    }
+
+    @Override
+    public String primaryKey(String tableName, String columns) {
+        return "CONSTRAINT " + constraintName(tableName) + " PRIMARY KEY (" + columns + ")";
+    }
+}
@@ -0,0 +1,244 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * Infers newline-delimited JSON on several threads. The content is cut into chunks of about
+ * chunkBytes that end on a newline between two top level values, so a record spread over several
+ * lines is never cut, every chunk is inferred by its own JsonSchemaInferrer on a
+ * ForkJoinPool, and the chunk inferences are merged in content order. Merging is associative
+ * and keeps the order of first appearance, so the result is the one a single inference over
+ * the whole content gives, whatever the number of threads.
+ *
+ * At most twice the parallelism of chunks are in memory at once. Content starting with a top
+ * level array has no record per line and is inferred on the calling thread. A top level array
+ * further on is a root value that is not a record, in any chunk, as it is for a single inference.
+ */
+public class ParallelInferrer {
+
+    /** bytes per chunk, a chunk grows to hold a longer record */
+    public static final int DEFAULT_CHUNK_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * creates the inferrer of one chunk, configured like the sequential inference
+     */
+    public interface Inferrers {
+        JsonSchemaInferrer newInferrer();
+    }
+
+    private final ForkJoinPool pool;
+    private final int chunkBytes;
+
+    /**
+     * @param pool runs the chunk inferences, its parallelism bounds the chunks in memory
+     * @param chunkBytes bytes per chunk
+     */
+    public ParallelInferrer(ForkJoinPool pool, int chunkBytes) {
+        this.pool = pool;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * @param in newline-delimited JSON, not closed
+     * @param factory creates the parser of every chunk
+     * @param inferrers creates the inferrer of every chunk
+     * @return inference of the whole content
+     * @throws IOException on unreadable or malformed JSON
+     */
+    public JsonSchemaInferrer infer(InputStream in, JsonFactory factory, Inferrers inferrers) throws IOException {
+        final Deque<ForkJoinTask<JsonSchemaInferrer>> pending = new ArrayDeque<ForkJoinTask<JsonSchemaInferrer>>();
+        final int maxPending = Math.max(pool.getParallelism() * 2, 2);
+
+        try {
+            return infer(in, factory, inferrers, pending, maxPending);
+        } catch (IOException | RuntimeException e) {
+            for (ForkJoinTask<JsonSchemaInferrer> chunk : pending) {
+                chunk.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    private JsonSchemaInferrer infer(InputStream in, JsonFactory factory, Inferrers inferrers,
+            Deque<ForkJoinTask<JsonSchemaInferrer>> pending, int maxPending) throws IOException {
+        JsonSchemaInferrer merged = null;
+        byte[] buffer = new byte[chunkBytes];
+        int length = 0;
+        boolean first = true;
+        final RecordEnds ends = new RecordEnds();
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1 || length > 0) {
+            if (read > 0) {
+                length += read;
+                if (length < buffer.length) {
+                    continue;
+                }
+            }
+            if (first) {
+                first = false;
+                if (startsWithArray(buffer, length)) {
+                    // one record per line cannot be assumed, read it all on this thread
+                    final InputStream content = new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), in);
+                    final JsonSchemaInferrer inferrer = inferrers.newInferrer();
+                    try (JsonParser parser = factory.createParser(content)) {
+                        inferrer.infer(parser);
+                    }
+                    return inferrer;
+                }
+            }
+
+            // the chunk ends after the last newline outside a value, the rest starts the next chunk
+            int end = length;
+            if (read != -1) {
+                end = ends.scan(buffer, length) + 1;
+                if (end == 0) {
+                    // the scan resumes after the bytes already scanned
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+            }
+            if (pending.size() >= maxPending) {
+                merged = merge(merged, pending.removeFirst());
+            }
+            pending.addLast(pool.submit(chunk(factory, inferrers, buffer, end)));
+
+            final byte[] next = new byte[Math.max(chunkBytes, length - end)];
+            System.arraycopy(buffer, end, next, 0, length - end);
+            buffer = next;
+            length -= end;
+            ends.shift(end);
+        }
+
+        while (!pending.isEmpty()) {
+            merged = merge(merged, pending.removeFirst());
+        }
+        return merged == null ? inferrers.newInferrer() : merged;
+    }
+
+    private static Callable<JsonSchemaInferrer> chunk(final JsonFactory factory, final Inferrers inferrers,
+            final byte[] content, final int length) {
+        return new Callable<JsonSchemaInferrer>() {
+            @Override
+            public JsonSchemaInferrer call() throws IOException {
+                final JsonSchemaInferrer inferrer = inferrers.newInferrer();
+                try (JsonParser parser = factory.createParser(content, 0, length)) {
+                    inferrer.infer(parser, false);
+                }
+                return inferrer;
+            }
+        };
+    }
+
+    /**
+     * wait for the next chunk in content order and merge it
+     */
+    private static JsonSchemaInferrer merge(JsonSchemaInferrer merged, ForkJoinTask<JsonSchemaInferrer> chunk)
+            throws IOException {
+        final JsonSchemaInferrer inferrer;
+        try {
+            inferrer = chunk.join();
+        } catch (RuntimeException e) {
+            // the pool wraps the IOException of a chunk, possibly more than once
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+        if (merged == null) {
+            return inferrer;
+        }
+        merged.merge(inferrer);
+        return merged;
+    }
+
+    private static boolean startsWithArray(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            final byte b = buffer[i];
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n' && b != (byte) 0xEF && b != (byte) 0xBB && b != (byte) 0xBF) {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * finds the last newline outside any object, array or string of a growing buffer, every byte
+     * is scanned once however often the buffer grows or is cut
+     */
+    static final class RecordEnds {
+
+        private int position;
+        private int depth;
+        private boolean inString;
+        private boolean escaped;
+        private int end = -1;
+
+        /**
+         * @param buffer content starting with a top level value, the bytes scanned before unchanged
+         * @param length bytes of content
+         * @return index of the last newline outside any object, array or string, -1 when there is none
+         */
+        int scan(byte[] buffer, int length) {
+            for (; position < length; position++) {
+                final byte b = buffer[position];
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                } else if (b == '\n' && depth <= 0) {
+                    end = position;
+                }
+            }
+            return end;
+        }
+
+        /**
+         * @param count bytes cut from the start of the buffer, up to and including a record end
+         */
+        void shift(int count) {
+            position -= count;
+            end = -1;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Set;
+
+/**
+ * Apache Phoenix, see https://phoenix.apache.org/language/datatypes.html
+ */
+public class PhoenixDialect extends AbstractSqlDialect {
+
+    private static final Set<String> RESERVED = reserved("ARRAY", "ASYNC", "CONSTANT", "FIRST", "LIMIT", "NEXT",
+            "OFFSET", "ONLY", "ROW", "ROWS", "ROW_TIMESTAMP", "SEQUENCE", "UPSERT");
+
+    public PhoenixDialect() {
+        super("phoenix", types("CHAR(1)", "BOOLEAN", "INTEGER", "BIGINT", "DECIMAL(38,10)", "DATE", "TIMESTAMP"),
+                "VARCHAR", Integer.MAX_VALUE, "VARCHAR", '"', 128, RESERVED);
+    }
+
+    @Override
+    protected String complexType(NestedType nested) {
+        if (isScalarArray(nested)) {
+            final NestedType element = nested.getElement();
+            return scalarType(element.getScalarType(), element.getMaxLength()) + " ARRAY";
+        }
+        return super.complexType(nested);
+    }
+
+    @Override
+    public String addColumn(String tableName, String column, String type) {
+        return "ALTER TABLE " + identifier(tableName) + " ADD " + column + " " + type;
+    }
+
+    @Override
+    public String alterColumnType(String tableName, String column, String type) {
+        // Phoenix cannot change the type of a column
+        return null;
+    }
+
+    @Override
+    public String dropNotNull(String tableName, String column, String type) {
+        // only primary key columns are NOT NULL in Phoenix
+        return null;
+    }
+
+    @Override
+    public String foreignKey(String tableName, String columns, String parentTable, String parentColumns) {
+        // Phoenix has no foreign keys
+        return null;
+    }
+}
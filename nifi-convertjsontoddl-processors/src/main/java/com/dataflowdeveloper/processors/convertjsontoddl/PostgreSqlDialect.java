@@ -0,0 +1,61 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Set;
+
+/**
+ * PostgreSQL, identifiers are truncated at 63 bytes.
+ */
+public class PostgreSqlDialect extends AbstractSqlDialect {
+
+    private static final Set<String> RESERVED = reserved("ANALYSE", "ANALYZE", "ARRAY", "ASYMMETRIC", "BOTH",
+            "COLLATE", "CONCURRENTLY", "DEFERRABLE", "DO", "EXCEPT", "FREEZE", "ILIKE", "INITIALLY", "ISNULL",
+            "LATERAL", "LEADING", "LIMIT", "LOCALTIME", "LOCALTIMESTAMP", "NATURAL", "NOTNULL", "OFFSET", "ONLY",
+            "OVERLAPS", "PLACING", "RETURNING", "SESSION_USER", "SIMILAR", "SOME", "SYMMETRIC", "TABLESAMPLE",
+            "TRAILING", "VARIADIC", "VERBOSE", "WINDOW");
+
+    public PostgreSqlDialect() {
+        super("postgresql", types("CHAR(1)", "BOOLEAN", "INTEGER", "BIGINT", "NUMERIC(38,10)", "DATE", "TIMESTAMP"),
+                "VARCHAR", 10485760, "TEXT", '"', 63, RESERVED);
+    }
+
+    @Override
+    protected String doubleType() {
+        return "DOUBLE PRECISION";
+    }
+
+    @Override
+    protected String decimalType(int precision, int scale) {
+        return "NUMERIC(" + precision + "," + scale + ")";
+    }
+
+    @Override
+    protected String complexType(NestedType nested) {
+        if (isScalarArray(nested)) {
+            final NestedType element = nested.getElement();
+            return scalarType(element.getScalarType(), element.getMaxLength()) + "[]";
+        }
+        return "JSONB";
+    }
+
+    @Override
+    public String primaryKey(String tableName, String columns) {
+        return "CONSTRAINT " + constraintName(tableName) + " PRIMARY KEY (" + columns + ")";
+    }
+}
@@ -0,0 +1,110 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.Random;
+
+/**
+ * Decides which records of a multi-record scan are classified.
+ * first-n and every-kth finish once the sample is full so the rest of the content is never parsed,
+ * reservoir keeps a uniform sample of the whole content and so has to see every record.
+ */
+public class RecordSampler {
+
+    public static final String ALL = "all";
+    public static final String FIRST_N = "first-n";
+    public static final String EVERY_KTH = "every-kth";
+    public static final String RESERVOIR = "reservoir";
+
+    /** returned by next() for a record outside the sample */
+    public static final int SKIP = -1;
+
+    private final String mode;
+    private final int size;
+    private final int stride;
+    private final Random random;
+    private long seen;
+    private long taken;
+
+    /**
+     * sample every record
+     */
+    public RecordSampler() {
+        this(ALL, 0, 1, 0L);
+    }
+
+    /**
+     * @param mode one of ALL, FIRST_N, EVERY_KTH, RESERVOIR
+     * @param size records in the sample
+     * @param stride k for EVERY_KTH
+     * @param seed reservoir seed, fixed so the same content gives the same sample
+     */
+    public RecordSampler(String mode, int size, int stride, long seed) {
+        this.mode = mode;
+        this.size = size;
+        this.stride = Math.max(stride, 1);
+        this.random = RESERVOIR.equals(mode) ? new Random(seed) : null;
+    }
+
+    /**
+     * offer the next record
+     *
+     * @return reservoir slot for RESERVOIR, 0 for other sampled records, SKIP otherwise
+     */
+    public int next() {
+        final long index = seen++;
+
+        if (RESERVOIR.equals(mode)) {
+            if (index < size) {
+                taken++;
+                return (int) index;
+            }
+            final long slot = (long) (random.nextDouble() * (index + 1));
+            return slot < size ? (int) slot : SKIP;
+        } else if (EVERY_KTH.equals(mode) && index % stride != 0) {
+            return SKIP;
+        }
+        taken++;
+        return 0;
+    }
+
+    /**
+     * @return true when no further record can enter the sample
+     */
+    public boolean isComplete() {
+        return (FIRST_N.equals(mode) || EVERY_KTH.equals(mode)) && taken >= size;
+    }
+
+    public boolean isReservoir() {
+        return RESERVOIR.equals(mode);
+    }
+
+    /**
+     * @return records offered so far
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    /**
+     * @return records currently in the sample
+     */
+    public long getTaken() {
+        return taken;
+    }
+}
@@ -0,0 +1,227 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Bounded LRU cache of column definitions keyed by the structural fingerprint of a document,
+ * so documents of an already seen shape skip value classification entirely.
+ *
+ * The fingerprint covers field names, token kinds, the first character class of strings,
+ * the type every scalar infers to, and value lengths in buckets of PADDING_FACTOR. Two
+ * documents in the same bucket differ by less than the padding, so a cached VARCHAR size
+ * still holds the values of a hit.
+ */
+public class SchemaCache {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int maxEntries;
+    private final Map<Key, String> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxEntries entries kept before the least recently used is evicted
+     */
+    public SchemaCache(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                if (size() > SchemaCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key structural fingerprint and table of the document
+     * @return cached column definitions, null on a miss
+     */
+    public String get(Key key) {
+        final String value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * @param key structural fingerprint and table of the document
+     * @param columnDefinitions column definitions inferred for that shape
+     * @return true when the least recently used entry was evicted to make room
+     */
+    public boolean put(Key key, String columnDefinitions) {
+        synchronized (entries) {
+            final long before = evictions.get();
+            entries.put(key, columnDefinitions);
+            return evictions.get() != before;
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * fingerprint the first top level value, tokenizing only, no value is classified
+     *
+     * @param parser positioned before the first token
+     * @return structural fingerprint
+     * @throws IOException on unreadable or malformed JSON
+     */
+    public static long fingerprint(JsonParser parser) throws IOException {
+        long hash = FNV_OFFSET;
+        int depth = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            hash = mix(hash, token.ordinal());
+            switch (token) {
+                case FIELD_NAME:
+                    // every character, names with the same String hash code are different columns
+                    final String name = parser.getCurrentName();
+                    hash = mix(hash, name.length());
+                    for (int i = 0; i < name.length(); i++) {
+                        hash = mix(hash, name.charAt(i));
+                    }
+                    break;
+                case VALUE_STRING:
+                    final int length = parser.getTextLength();
+                    hash = mix(hash, length <= 1 ? -1 : length / JsonToDDLProcessor.PADDING_FACTOR);
+                    if (length > 0) {
+                        final char[] text = parser.getTextCharacters();
+                        final int offset = parser.getTextOffset();
+                        hash = mix(hash, charClass(text[offset]));
+                        // the type the value infers to, booleans, dates and date-times included
+                        hash = mix(hash, JsonSchemaInferrer.classifyText(text, offset, length));
+                    }
+                    break;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    // the same digit count can be an int or a long, and a float can be any of the three
+                    hash = mix(hash, parser.getTextLength());
+                    hash = mix(hash, JsonSchemaInferrer.classifyNumber(parser));
+                    break;
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+            if (depth == 0) {
+                break;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * cache key of a document, the table type and name are compared as they are since
+     * constraint names and child table names embed them
+     */
+    public static final class Key {
+
+        private final long fingerprint;
+        private final String tableType;
+        private final String tableName;
+
+        /**
+         * @param fingerprint structural fingerprint of the document
+         * @param tableType table type the DDL is rendered for, null for the default
+         * @param tableName name of the table
+         */
+        public Key(long fingerprint, String tableType, String tableName) {
+            this.fingerprint = fingerprint;
+            this.tableType = tableType;
+            this.tableName = tableName;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) other;
+            return fingerprint == key.fingerprint && Objects.equals(tableType, key.tableType)
+                    && Objects.equals(tableName, key.tableName);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(fingerprint) * 31 + Objects.hashCode(tableType)) * 31 + Objects.hashCode(tableName);
+        }
+    }
+
+    private static int charClass(char c) {
+        if (c >= '0' && c <= '9') {
+            return 1;
+        } else if (Character.isLetter(c)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+        hash = (hash ^ ((value >>> 8) & 0xff)) * FNV_PRIME;
+        hash = (hash ^ ((value >>> 16) & 0xff)) * FNV_PRIME;
+        return (hash ^ (value >>> 24)) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,46 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+/**
+ * Describes the inferred document table in a schema language other than SQL, from the same
+ * dialect neutral ColumnState, NestedType and TableState model the SqlDialect implementations render.
+ */
+public interface SchemaFormat {
+
+    /**
+     * @return schemaFormat value this format answers to
+     */
+    String getName();
+
+    /**
+     * @return FlowFile attribute the schema is written to
+     */
+    String getAttribute();
+
+    /**
+     * @param tableName table name, names the schema
+     * @param table inferred document table
+     * @param knownNullability true when every record was scanned, so a column seen in all of them is required
+     * @return schema text
+     * @throws IOException when the schema cannot be written
+     */
+    String schema(String tableName, TableState table, boolean knownNullability) throws IOException;
+}
@@ -0,0 +1,44 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.IOException;
+
+/**
+ * Keeps the known schema of every table the processor has generated DDL for, so later
+ * content only produces ALTER TABLE statements. Updates are compare and set, an inference
+ * that lost a race reads the schema again and merges into that.
+ */
+public interface SchemaStore {
+
+    /**
+     * @param table table key
+     * @return known schema, null for a table not seen yet
+     * @throws IOException when the store cannot be read
+     */
+    KnownSchema get(String table) throws IOException;
+
+    /**
+     * @param table table key
+     * @param expected schema returned by get, null when get found none
+     * @param updated schema to keep
+     * @return true when the store still held expected and now holds updated
+     * @throws IOException when the store cannot be written
+     */
+    boolean replace(String table, KnownSchema expected, KnownSchema updated) throws IOException;
+}
@@ -0,0 +1,89 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * How one database spells a CREATE TABLE: column types, identifier quoting and length,
+ * and primary key syntax. Implementations are listed in
+ * META-INF/services/com.dataflowdeveloper.processors.convertjsontoddl.SqlDialect
+ * and looked up by tableType through SqlDialects.
+ */
+public interface SqlDialect {
+
+    /**
+     * @return the tableType value this dialect answers to, lower case
+     */
+    String getName();
+
+    /**
+     * @param column inferred column
+     * @return SQL type of the column
+     */
+    String columnType(ColumnState column);
+
+    /**
+     * @param name clean identifier
+     * @return identifier truncated to the maximum length, quoted when it needs to be
+     */
+    String identifier(String name);
+
+    /**
+     * @return longest identifier the database accepts
+     */
+    int getMaxIdentifierLength();
+
+    /**
+     * @param tableName table the constraint belongs to
+     * @param columns comma separated key columns
+     * @return primary key clause for the end of the column list
+     */
+    String primaryKey(String tableName, String columns);
+
+    /**
+     * @param tableName child table the constraint belongs to
+     * @param columns comma separated referencing columns
+     * @param parentTable referenced table
+     * @param parentColumns comma separated key columns of the referenced table
+     * @return foreign key clause for the end of the column list, null when the database has none
+     */
+    String foreignKey(String tableName, String columns, String parentTable, String parentColumns);
+
+    /**
+     * @param tableName table to alter
+     * @param column column identifier
+     * @param type SQL type of the column
+     * @return statement adding the column to an existing table
+     */
+    String addColumn(String tableName, String column, String type);
+
+    /**
+     * @param tableName table to alter
+     * @param column column identifier
+     * @param type wider SQL type of the column
+     * @return statement changing the type of an existing column, null when the database cannot
+     */
+    String alterColumnType(String tableName, String column, String type);
+
+    /**
+     * @param tableName table to alter
+     * @param column column identifier
+     * @param type SQL type of the column
+     * @return statement letting a NOT NULL column hold nulls, null when the database cannot
+     */
+    String dropNotNull(String tableName, String column, String type);
+}
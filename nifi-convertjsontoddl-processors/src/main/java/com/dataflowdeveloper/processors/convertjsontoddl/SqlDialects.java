@@ -0,0 +1,53 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the SqlDialect implementations on the classpath, loaded once.
+ */
+public final class SqlDialects {
+
+    private static final SqlDialect GENERIC = new GenericDialect();
+    private static final Map<String, SqlDialect> DIALECTS = new HashMap<String, SqlDialect>();
+
+    static {
+        for (SqlDialect dialect : ServiceLoader.load(SqlDialect.class, SqlDialect.class.getClassLoader())) {
+            DIALECTS.put(dialect.getName(), dialect);
+        }
+    }
+
+    private SqlDialects() {
+    }
+
+    /**
+     * @param tableType tableType property value, case insensitive
+     * @return matching dialect, the generic dialect for unknown or missing types
+     */
+    public static SqlDialect forName(String tableType) {
+        if (tableType == null) {
+            return GENERIC;
+        }
+        final SqlDialect dialect = DIALECTS.get(tableType.trim().toLowerCase(Locale.ROOT));
+        return dialect == null ? GENERIC : dialect;
+    }
+}
@@ -0,0 +1,77 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns of one inferred table, the document itself or a child table holding the
+ * elements of an array when arrays are normalized into child tables.
+ */
+public class TableState {
+
+    private final String name;
+    private final TableState parent;
+    private final List<ColumnState> columns = new ArrayList<ColumnState>();
+    private long recordCount;
+
+    /**
+     * @param name clean name of the array path for a child table, null for the document table
+     * @param parent table the array belongs to, null for the document table
+     */
+    public TableState(String name, TableState parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TableState getParent() {
+        return parent;
+    }
+
+    /**
+     * @return columns in order of first appearance
+     */
+    public List<ColumnState> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * @return records, or array elements for a child table, merged into the columns
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    void addColumn(ColumnState column) {
+        columns.add(column);
+    }
+
+    void addRecord() {
+        recordCount++;
+    }
+
+    void setRecordCount(long recordCount) {
+        this.recordCount = recordCount;
+    }
+}
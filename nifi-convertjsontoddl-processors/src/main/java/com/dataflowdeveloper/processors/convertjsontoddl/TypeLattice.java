@@ -0,0 +1,110 @@
+package com.dataflowdeveloper.processors.convertjsontoddl;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * The lattice of the ColumnState type constants. NONE is the bottom, VARCHAR the top, and the
+ * chains CHAR, BOOLEAN, INT &lt; LONG &lt; DECIMAL, DATE &lt; DATETIME and JSON sit in between,
+ * so two values of different chains join at VARCHAR.
+ *
+ * An element is a type with the longest value text, packed into one long. join and merge are
+ * commutative, associative and idempotent, so states inferred over any split of the records,
+ * on any thread or node, merge to the state a single sequential scan gives.
+ */
+public final class TypeLattice {
+
+    /** element of a column with no value */
+    public static final long BOTTOM = 0L;
+
+    private static final int TYPE_BITS = 4;
+    private static final long TYPE_MASK = (1L << TYPE_BITS) - 1;
+
+    private TypeLattice() {
+    }
+
+    /**
+     * @param type ColumnState type constant
+     * @param maxLength longest value text
+     * @return packed element
+     */
+    public static long of(int type, int maxLength) {
+        return ((long) maxLength << TYPE_BITS) | type;
+    }
+
+    /**
+     * @param element packed element
+     * @return ColumnState type constant
+     */
+    public static int type(long element) {
+        return (int) (element & TYPE_MASK);
+    }
+
+    /**
+     * @param element packed element
+     * @return longest value text
+     */
+    public static int maxLength(long element) {
+        return (int) (element >>> TYPE_BITS);
+    }
+
+    /**
+     * @param a packed element
+     * @param b packed element
+     * @return least element above both
+     */
+    public static long merge(long a, long b) {
+        return of(join(type(a), type(b)), Math.max(maxLength(a), maxLength(b)));
+    }
+
+    /**
+     * smallest type that holds values of both types
+     *
+     * @param a type constant
+     * @param b type constant
+     * @return joined type constant
+     */
+    public static int join(int a, int b) {
+        if (a == b || b == ColumnState.NONE) {
+            return a;
+        } else if (a == ColumnState.NONE) {
+            return b;
+        } else if (isNumeric(a) && isNumeric(b)) {
+            return Math.max(a, b);
+        } else if (isTemporal(a) && isTemporal(b)) {
+            return ColumnState.DATETIME;
+        }
+        return ColumnState.VARCHAR;
+    }
+
+    /**
+     * @param a type constant
+     * @param b type constant
+     * @return true when values of type a fit type b
+     */
+    public static boolean isWithin(int a, int b) {
+        return join(a, b) == b;
+    }
+
+    public static boolean isNumeric(int type) {
+        return type == ColumnState.INT || type == ColumnState.LONG || type == ColumnState.DECIMAL;
+    }
+
+    public static boolean isTemporal(int type) {
+        return type == ColumnState.DATE || type == ColumnState.DATETIME;
+    }
+}
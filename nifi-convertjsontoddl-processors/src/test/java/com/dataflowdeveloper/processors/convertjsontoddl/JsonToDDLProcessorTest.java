@@ -3,16 +3,32 @@
  */
 package com.dataflowdeveloper.processors.convertjsontoddl;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import org.apache.nifi.distributed.cache.client.DistributedMapCacheClientService;
+import org.apache.nifi.distributed.cache.server.map.DistributedMapCacheServer;
+import org.apache.nifi.serialization.record.MockRecordParser;
+import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.MockPropertyValue;
 import org.apache.nifi.util.TestRunner;
@@ -233,5 +249,809 @@ public class JsonToDDLProcessorTest {
 		}
 	}
 
+	@Test
+	public void parse_should_stream_same_DDL_as_string() throws Exception {
+		JsonToDDLProcessor processor = (JsonToDDLProcessor) testRunner.getProcessor();
+		File file = new File("src/test/resources/simple.json");
+		String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+		String fromString = processor.parse("simple", json, "hive", null);
+		String fromStream;
+		try (InputStream in = new FileInputStream(file)) {
+			fromStream = processor.parse("simple", in, "hive", null);
+		}
+
+		assertEquals(fromString, fromStream);
+		assertTrue(fromStream.contains("EMPID INT"));
+		assertTrue(fromStream.contains("FIRSTNAME VARCHAR(17)"));
+	}
+
+	@Test
+	public void processor_should_merge_all_records() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "events");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.enqueue("{\"id\":1,\"code\":\"a\"}\n{\"id\":3000000000,\"code\":\"abcdef\",\"note\":\"x\"}\n");
+
+		testRunner.assertValid();
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+
+		String ddl = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0)
+				.getAttribute(JsonToDDLProcessor.FIELD_DDL);
+		assertTrue(ddl.contains("id BIGINT NOT NULL"));
+		assertTrue(ddl.contains("code VARCHAR(18) NOT NULL"));
+		assertTrue(ddl.contains("note CHAR(1)"));
+		assertFalse(ddl.contains("note CHAR(1) NOT NULL"));
+	}
+
+	@Test
+	public void processor_should_stop_after_first_n_sample() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "events");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SAMPLING_MODE, RecordSampler.FIRST_N);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SAMPLE_SIZE, "2");
+		testRunner.enqueue("[{\"id\":1},{\"id\":2},{\"id\":\"not a number\"},{\"late\":1}]");
+
+		testRunner.assertValid();
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+
+		MockFlowFile mockFile = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		String ddl = mockFile.getAttribute(JsonToDDLProcessor.FIELD_DDL);
+		assertTrue(ddl.contains("id INT NOT NULL"));
+		assertFalse(ddl.contains("late"));
+		mockFile.assertAttributeEquals(JsonToDDLProcessor.FIELD_SAMPLED_RECORDS, "2");
+		mockFile.assertAttributeEquals(JsonToDDLProcessor.FIELD_TYPE_CONFIDENCE, "id=1.000");
+	}
+
+	@Test
+	public void processor_should_reuse_cached_schema_for_same_shape() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_CACHE_SIZE, "10");
+		testRunner.enqueue("{\"id\":1,\"name\":\"Brett\",\"born\":\"2001-02-03\"}");
+		testRunner.enqueue("{\"id\":2,\"name\":\"Lee\",\"born\":\"1999-12-31\"}");
+		testRunner.enqueue("{\"id\":3,\"email\":\"lee@example.com\"}");
+
+		testRunner.assertValid();
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 3);
+
+		List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		assertEquals(successFiles.get(0).getAttribute(JsonToDDLProcessor.FIELD_DDL),
+				successFiles.get(1).getAttribute(JsonToDDLProcessor.FIELD_DDL));
+		assertTrue(successFiles.get(2).getAttribute(JsonToDDLProcessor.FIELD_DDL).contains("email VARCHAR(27)"));
+		assertEquals(1L, testRunner.getCounterValue(JsonToDDLProcessor.COUNTER_CACHE_HITS).longValue());
+		assertEquals(2L, testRunner.getCounterValue(JsonToDDLProcessor.COUNTER_CACHE_MISSES).longValue());
+	}
+
+	@Test
+	public void processor_should_take_one_batch_per_trigger() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_BATCH_SIZE, "2");
+		testRunner.enqueue("{\"id\":1}");
+		testRunner.enqueue("{\"id\":2}");
+		testRunner.enqueue("{\"id\":3}");
+
+		testRunner.assertValid();
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 2);
+		testRunner.assertQueueNotEmpty();
+	}
+
+	@Test
+	public void processor_should_do_nothing_when_idle() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+
+		testRunner.run(5);
+		testRunner.assertTransferCount(JsonToDDLProcessor.REL_SUCCESS, 0);
+		testRunner.assertTransferCount(JsonToDDLProcessor.REL_FAILURE, 0);
+	}
+
+	@Test
+	public void processor_should_generate_from_property_when_idle() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_JSON_DOCUMENT, "{\"id\":1,\"name\":\"Brett\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		assertTrue(testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0)
+				.getAttribute(JsonToDDLProcessor.FIELD_DDL).startsWith("CREATE TABLE people ( id INT"));
+	}
+
+	@Test
+	public void processor_should_use_dialect_types() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "simple");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "oracle");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_PRIMARY_KEY, "EMPID");
+		testRunner.enqueue("{\"EMP_ID\":4001,\"BIG\":3000000000,\"FIRST_NAME\":\"Brett\",\"ACTIVE\":true,\"HIRED\":\"2017-01-02\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		assertEquals("CREATE TABLE simple ( EMPID NUMBER(10), BIG NUMBER(19), FIRSTNAME VARCHAR2(17), ACTIVE NUMBER(1), HIRED DATE, "
+				+ "CONSTRAINT pk_simple PRIMARY KEY (EMPID) )",
+				testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).getAttribute(JsonToDDLProcessor.FIELD_DDL));
+	}
+
+	@Test
+	public void parse_should_type_date_shapes() {
+		JsonToDDLProcessor processor = (JsonToDDLProcessor) testRunner.getProcessor();
+		String ddl = processor.parse("events", "{\"DAY\":\"2018-01-23\",\"AT\":\"2018-01-23T10:15:30Z\","
+				+ "\"SENT\":\"Tue, 23 Jan 2018 10:15:30 +0000\",\"CODE\":\"2018-13-01\"}", "hive", null);
+
+		assertTrue(ddl.contains("DAY DATE"));
+		assertTrue(ddl.contains("AT TIMESTAMP"));
+		assertTrue(ddl.contains("SENT TIMESTAMP"));
+		assertTrue(ddl.contains("CODE VARCHAR"));
+	}
+
+	@Test
+	public void parse_should_keep_column_names_distinct_and_quote_reserved_words() {
+		JsonToDDLProcessor processor = (JsonToDDLProcessor) testRunner.getProcessor();
+		String ddl = processor.parse("orders", "{\"EMP_ID\":1,\"EMPID\":2,\"select\":\"x\"}", "mysql", null);
+
+		assertEquals("CREATE TABLE orders ( EMPID INT, EMPID_2 INT, `select` CHAR(1) ) ", ddl);
+	}
+
+	@Test
+	public void processor_should_write_ddl_to_selected_destination() {
+		String json = "{\"id\":1,\"name\":\"Brett\"}";
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_DESTINATION, JsonToDDLProcessor.DESTINATION_CONTENT);
+		testRunner.enqueue(json);
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		MockFlowFile content = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		content.assertContentEquals("CREATE TABLE people ( id INT, name VARCHAR(17) ) ");
+		content.assertAttributeNotExists(JsonToDDLProcessor.FIELD_DDL);
+
+		testRunner.clearTransferState();
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_DESTINATION, JsonToDDLProcessor.DESTINATION_PRESERVED);
+		testRunner.enqueue(json);
+
+		testRunner.run();
+		MockFlowFile preserved = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		preserved.assertContentEquals(json);
+		preserved.assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "CREATE TABLE people ( id INT, name VARCHAR(17) ) ");
+	}
+
+	@Test
+	public void processor_should_flatten_nested_values() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_FLATTEN_DEPTH, "1");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_ARRAY_POLICY, JsonSchemaInferrer.ARRAYS_EXPLODE_INDEX);
+		testRunner.enqueue("{\"id\":1,\"address\":{\"city\":\"Princeton\",\"geo\":{\"lat\":40}},\"tags\":[\"a\",\"bb\"]}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE people ( id INT, address_city VARCHAR(21), address_geo STRING, tags_0 CHAR(1), tags_1 VARCHAR(14) ) ");
+	}
+
+	@Test
+	public void processor_should_infer_native_complex_types() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_COMPLEX_TYPES, JsonToDDLProcessor.COMPLEX_TYPES_NATIVE);
+		testRunner.enqueue("{\"id\":1,\"address\":{\"city\":\"Princeton\",\"geo\":{\"lat\":40}},\"tags\":[\"a\",\"bb\"],"
+				+ "\"orders\":[{\"sku\":\"X1\"},{\"sku\":\"Y2\",\"qty\":2}]}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE people ( id INT, address STRUCT<city:STRING,geo:STRUCT<lat:INT>>, tags ARRAY<STRING>, "
+						+ "orders ARRAY<STRUCT<sku:STRING,qty:INT>> ) ");
+	}
+
+	@Test
+	public void processor_should_key_child_tables_to_parent() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "mysql");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_PRIMARY_KEY, "id");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_ARRAY_POLICY, JsonSchemaInferrer.ARRAYS_CHILD_TABLE);
+		testRunner.enqueue("{\"id\":1,\"orders\":[{\"sku\":\"X1\",\"qty\":2},{\"sku\":\"Y22\"}]}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE people ( id INT, CONSTRAINT pk PRIMARY KEY (id) );\n"
+						+ "CREATE TABLE people_orders ( people_id INT NOT NULL, orders_index INT NOT NULL, sku VARCHAR(15), qty INT, "
+						+ "CONSTRAINT pk PRIMARY KEY (people_id, orders_index), "
+						+ "CONSTRAINT fk_people_orders FOREIGN KEY (people_id) REFERENCES people (id) )");
+	}
+
+	@Test
+	public void processor_should_alter_known_tables() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "mysql");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_EVOLUTION, JsonToDDLProcessor.SCHEMA_EVOLUTION_ALTER);
+		testRunner.enqueue("{\"id\":1,\"name\":\"ab\"}");
+		testRunner.enqueue("{\"id\":2,\"name\":\"ab\"}");
+		testRunner.enqueue("{\"id\":12345678901,\"name\":\"ab\",\"age\":3}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 3);
+		List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		successFiles.get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "CREATE TABLE people ( id INT, name VARCHAR(14) ) ");
+		successFiles.get(1).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "");
+		successFiles.get(2).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"ALTER TABLE people MODIFY COLUMN id BIGINT;\nALTER TABLE people ADD COLUMN age INT");
+	}
+
+	@Test
+	public void processor_should_share_known_schemas_between_nodes() throws Exception {
+		final DistributedMapCacheServer server = new DistributedMapCacheServer();
+		testRunner.addControllerService("server", server);
+		testRunner.setProperty(server, DistributedMapCacheServer.PORT, "0");
+		testRunner.enableControllerService(server);
+
+		// two processors standing in for two nodes of a cluster
+		final TestRunner otherNode = TestRunners.newTestRunner(JsonToDDLProcessor.class);
+		for (TestRunner node : new TestRunner[] {testRunner, otherNode}) {
+			final DistributedMapCacheClientService client = new DistributedMapCacheClientService();
+			node.addControllerService("client", client);
+			node.setProperty(client, DistributedMapCacheClientService.HOSTNAME, "localhost");
+			node.setProperty(client, DistributedMapCacheClientService.PORT, String.valueOf(server.getPort()));
+			node.enableControllerService(client);
+			node.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+			node.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "mysql");
+			node.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_EVOLUTION, JsonToDDLProcessor.SCHEMA_EVOLUTION_ALTER);
+			node.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_STORE, "client");
+		}
+
+		testRunner.enqueue("{\"id\":1,\"name\":\"ab\"}");
+		testRunner.run();
+		otherNode.enqueue("{\"id\":2,\"name\":\"ab\",\"age\":3}");
+		otherNode.run();
+
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE people ( id INT, name VARCHAR(14) ) ");
+		otherNode.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"ALTER TABLE people ADD COLUMN age INT");
+	}
+
+	@Test
+	public void processor_should_write_avro_schema() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_FORMAT, AvroSchemaFormat.NAME);
+		testRunner.enqueue("{\"id\":1,\"first-name\":\"Tim\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		MockFlowFile result = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		result.assertAttributeEquals(AvroSchemaFormat.ATTRIBUTE, "{\"type\":\"record\",\"name\":\"people\",\"fields\":["
+				+ "{\"name\":\"id\",\"type\":[\"null\",\"int\"],\"default\":null},"
+				+ "{\"name\":\"firstname\",\"type\":[\"null\",\"string\"],\"default\":null,\"aliases\":[\"first-name\"]}]}");
+		result.assertAttributeNotExists(JsonSchemaFormat.ATTRIBUTE);
+	}
+
+	@Test
+	public void processor_should_infer_from_record_reader() throws Exception {
+		final MockRecordParser reader = new MockRecordParser();
+		reader.addSchemaField("id", RecordFieldType.INT);
+		reader.addSchemaField("name", RecordFieldType.STRING);
+		reader.addSchemaField("score", RecordFieldType.DOUBLE);
+		reader.addRecord(1, "Tim", 1.5);
+		reader.addRecord(2, "Timothy", null);
+		testRunner.addControllerService("reader", reader);
+		testRunner.enableControllerService(reader);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_RECORD_READER, "reader");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "mysql");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.enqueue("");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		MockFlowFile result = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE people ( id INT NOT NULL, name VARCHAR(19) NOT NULL, score DECIMAL(38,10) ) ");
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_SAMPLED_RECORDS, "2");
+	}
+
+	@Test
+	public void processor_should_infer_precise_numeric_types() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "nums");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_NUMERIC_TYPES, JsonToDDLProcessor.NUMERIC_TYPES_PRECISE);
+		testRunner.enqueue("{\"a\":1,\"b\":40000,\"c\":12345678901,\"d\":-12.25,\"e\":1e10,\"f\":123456789012345678901234567890}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE nums ( a SMALLINT, b INT, c BIGINT, d DECIMAL(4,2), e DOUBLE, f DECIMAL(30,0) ) ");
+	}
+
+	@Test
+	public void type_lattice_should_merge_in_any_order() {
+		for (int a = ColumnState.NONE; a <= ColumnState.JSON; a++) {
+			for (int b = ColumnState.NONE; b <= ColumnState.JSON; b++) {
+				assertEquals(TypeLattice.join(a, b), TypeLattice.join(b, a));
+				for (int c = ColumnState.NONE; c <= ColumnState.JSON; c++) {
+					assertEquals(TypeLattice.join(TypeLattice.join(a, b), c), TypeLattice.join(a, TypeLattice.join(b, c)));
+				}
+			}
+		}
+
+		// records 0 and 2 on one thread, record 1 on another
+		ColumnState all = new ColumnState("amount");
+		ColumnState first = new ColumnState("amount");
+		ColumnState second = new ColumnState("amount");
+		all.observe(0, ColumnState.INT, 2);
+		first.observe(0, ColumnState.INT, 2);
+		all.observe(1, ColumnState.DECIMAL, 5);
+		second.observe(1, ColumnState.DECIMAL, 5);
+		all.observe(2, ColumnState.NONE, 0);
+		first.observe(2, ColumnState.NONE, 0);
+		second.merge(first);
+		assertEquals(all.getElement(), second.getElement());
+		assertEquals(ColumnState.DECIMAL, second.getType());
+		assertEquals(5, second.getMaxLength());
+		assertTrue(second.isNullable(3));
+		assertEquals(all.getConfidence(), second.getConfidence(), 0.0);
+	}
+
+	@Test
+	public void parallel_inference_should_match_sequential() throws IOException {
+		final StringBuilder json = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			json.append("{\"id\":").append(i).append(",\"amount\":").append(i % 7 == 0 ? "12.5" : String.valueOf(i));
+			if (i % 3 == 0) {
+				json.append(",\"note\":\"").append(i % 2 == 0 ? "2018-01-01" : "n" + i).append('"');
+			}
+			json.append("}\n");
+		}
+		final byte[] content = json.toString().getBytes(StandardCharsets.UTF_8);
+		final JsonFactory factory = new JsonFactory();
+
+		final JsonSchemaInferrer sequential = new JsonSchemaInferrer(true, 0);
+		try (JsonParser parser = factory.createParser(content)) {
+			sequential.infer(parser);
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			// chunks of a few records each
+			final JsonSchemaInferrer parallel = new ParallelInferrer(pool, 64).infer(new ByteArrayInputStream(content), factory,
+					new ParallelInferrer.Inferrers() {
+						@Override
+						public JsonSchemaInferrer newInferrer() {
+							return new JsonSchemaInferrer(true, 0);
+						}
+					});
+			assertEquals(sequential.getRecordCount(), parallel.getRecordCount());
+			final List<ColumnState> expected = new ArrayList<>(sequential.getTable().getColumns());
+			final List<ColumnState> actual = new ArrayList<>(parallel.getTable().getColumns());
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getName(), actual.get(i).getName());
+				assertEquals(expected.get(i).getElement(), actual.get(i).getElement());
+				assertEquals(expected.get(i).isNullable(sequential.getRecordCount()), actual.get(i).isNullable(parallel.getRecordCount()));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void parallel_inference_should_skip_top_level_arrays_after_a_chunk_boundary() throws IOException {
+		// the first line fills a 64 byte chunk, the next chunk starts with an array that is not a record
+		final StringBuilder json = new StringBuilder("{\"id\":1,\"name\":\"");
+		while (json.length() < 61) {
+			json.append('a');
+		}
+		json.append("\"}\n[{\"x\":1}]\n{\"id\":2}\n");
+		final byte[] content = json.toString().getBytes(StandardCharsets.UTF_8);
+		final JsonFactory factory = new JsonFactory();
+
+		final JsonSchemaInferrer sequential = new JsonSchemaInferrer(true, 0);
+		try (JsonParser parser = factory.createParser(content)) {
+			sequential.infer(parser);
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			final JsonSchemaInferrer parallel = new ParallelInferrer(pool, 64).infer(new ByteArrayInputStream(content), factory,
+					new ParallelInferrer.Inferrers() {
+						@Override
+						public JsonSchemaInferrer newInferrer() {
+							return new JsonSchemaInferrer(true, 0);
+						}
+					});
+			assertEquals(2, sequential.getRecordCount());
+			assertEquals(sequential.getRecordCount(), parallel.getRecordCount());
+			final List<ColumnState> expected = new ArrayList<>(sequential.getTable().getColumns());
+			final List<ColumnState> actual = new ArrayList<>(parallel.getTable().getColumns());
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getName(), actual.get(i).getName());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void mapped_input_should_read_records_split_across_regions() throws IOException {
+		final byte[] json = "{\"id\":7,\"city\":\"Princeton\"}\n{\"id\":8,\"zip\":\"08540\"}".getBytes(StandardCharsets.UTF_8);
+		final File file = File.createTempFile("mapped", ".json");
+		file.deleteOnExit();
+		Files.write(file.toPath(), json);
+
+		// 10 byte regions split every record, reads never cross a region
+		final byte[] read = new byte[json.length];
+		try (InputStream mapped = new MappedInputStream(file, 10)) {
+			int total = 0;
+			int count;
+			while ((count = mapped.read(read, total, read.length - total)) > 0) {
+				assertTrue(count <= 10);
+				total += count;
+			}
+			assertEquals(json.length, total);
+			assertEquals(-1, mapped.read());
+		}
+		assertEquals(new String(json, StandardCharsets.UTF_8), new String(read, StandardCharsets.UTF_8));
+
+		final JsonToDDLProcessor processor = new JsonToDDLProcessor();
+		try (InputStream mapped = new MappedInputStream(file, 10)) {
+			assertEquals(processor.parse("mapped", new ByteArrayInputStream(json), "hive", null),
+					processor.parse("mapped", mapped, "hive", null));
+		}
+	}
+
+	@Test
+	public void processor_should_stop_once_schema_is_stable() {
+		final StringBuilder json = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			json.append(i == 500 ? "{\"id\":1,\"name\":\"ab\",\"extra\":true}\n" : "{\"id\":1,\"name\":\"ab\"}\n");
+		}
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "events");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_STABILITY_RECORDS, "10");
+		testRunner.enqueue(json.toString());
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		final MockFlowFile result = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		// the first record adds both columns, the next 10 change nothing
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "CREATE TABLE events ( id INT NOT NULL, name VARCHAR(14) NOT NULL ) ");
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_SCANNED_RECORDS, "11");
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_SCANNED_BYTES, "230");
+	}
+
+	@Test
+	public void processor_should_sample_every_record_when_stability_does_not_apply() {
+		final StringBuilder json = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			json.append(i == 50 ? "{\"id\":1,\"late\":true}\n" : "{\"id\":1}\n");
+		}
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "events");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SAMPLING_MODE, RecordSampler.RESERVOIR);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SAMPLE_SIZE, "1000");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_STABILITY_RECORDS, "10");
+		testRunner.enqueue(json.toString());
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		final MockFlowFile result = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0);
+		// reservoir sampling does not track changes, the window must not cut the scan short
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "CREATE TABLE events ( id INT NOT NULL, late BOOLEAN ) ");
+		result.assertAttributeEquals(JsonToDDLProcessor.FIELD_SAMPLED_RECORDS, "100");
+		result.assertAttributeNotExists(JsonToDDLProcessor.FIELD_SCANNED_RECORDS);
+	}
+
+	@Test
+	public void processor_should_count_inference_metrics() {
+		final String json = "{\"id\":1,\"name\":\"ab\"}\n{\"id\":2,\"name\":\"cd\"}";
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "metrics");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_METRICS_ATTRIBUTE, "true");
+		testRunner.enqueue(json);
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		assertEquals(json.length(), testRunner.getCounterValue(InferenceMetrics.COUNTER_BYTES_READ).longValue());
+		assertEquals(2L, testRunner.getCounterValue(InferenceMetrics.COUNTER_RECORDS_SCANNED).longValue());
+		assertEquals(2L, testRunner.getCounterValue(InferenceMetrics.COUNTER_COLUMNS_EMITTED).longValue());
+		assertEquals(1L, testRunner.getCounterValue(InferenceMetrics.COUNTER_COLUMNS_PREFIX + "int").longValue());
+		assertEquals(1L, testRunner.getCounterValue(InferenceMetrics.COUNTER_COLUMNS_PREFIX + "varchar").longValue());
+
+		final String metrics = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0)
+				.getAttribute(JsonToDDLProcessor.FIELD_METRICS);
+		assertTrue(metrics.startsWith("bytesRead=" + json.length() + ",recordsScanned=2,columnsEmitted=2,"));
+		assertTrue(metrics.endsWith(",int=1,varchar=1"));
+	}
+
+	@Test
+	public void parse_should_clean_constraint_names_of_filename_tables() {
+		JsonToDDLProcessor processor = (JsonToDDLProcessor) testRunner.getProcessor();
+
+		assertEquals("CREATE TABLE \"weather.json\" ( id NUMBER(10), temp NUMBER(10), CONSTRAINT pk_weatherjson PRIMARY KEY (id) )",
+				processor.parse("weather.json", "{\"id\":1,\"temp\":25}", "oracle", "id"));
+		assertEquals("CREATE TABLE \"weather.json\" ( id INTEGER, temp INTEGER, CONSTRAINT pk_weatherjson PRIMARY KEY (id) )",
+				processor.parse("weather.json", "{\"id\":1,\"temp\":25}", "postgresql", "id"));
+		assertEquals("CONSTRAINT fk_weatherjson_items FOREIGN KEY (id) REFERENCES \"weather.json\" (id)",
+				SqlDialects.forName("postgresql").foreignKey("weather.json_items", "id", "weather.json", "id"));
+		// child tables a_bc and ab_c keep distinct names
+		assertEquals("CONSTRAINT pk_a_bc PRIMARY KEY (id)", SqlDialects.forName("oracle").primaryKey("a_bc", "id"));
+		assertEquals("CONSTRAINT pk_ab_c PRIMARY KEY (id)", SqlDialects.forName("oracle").primaryKey("ab_c", "id"));
+	}
+
+	@Test
+	public void processor_should_not_share_cached_schema_across_value_types() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "readings");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_CACHE_SIZE, "10");
+		// same lengths and first characters, different types
+		testRunner.enqueue("{\"v\":2147483647,\"s\":\"12345\"}");
+		testRunner.enqueue("{\"v\":9999999999,\"s\":\"2018-01-23\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 2);
+		List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		assertTrue(successFiles.get(0).getAttribute(JsonToDDLProcessor.FIELD_DDL).contains("v INT, s VARCHAR"));
+		assertTrue(successFiles.get(1).getAttribute(JsonToDDLProcessor.FIELD_DDL).contains("v BIGINT, s DATE"));
+		assertEquals(2L, testRunner.getCounterValue(JsonToDDLProcessor.COUNTER_CACHE_MISSES).longValue());
+	}
+
+	@Test
+	public void processor_should_not_share_cached_constraint_names_across_tables() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "${table}");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "oracle");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_PRIMARY_KEY, "id");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_CACHE_SIZE, "10");
+		final Map<String, String> attributes = new HashMap<String, String>();
+		attributes.put("table", "orders");
+		testRunner.enqueue("{\"id\":1}", attributes);
+		attributes.put("table", "invoices");
+		testRunner.enqueue("{\"id\":2}", attributes);
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 2);
+		List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		assertTrue(successFiles.get(0).getAttribute(JsonToDDLProcessor.FIELD_DDL).endsWith("CONSTRAINT pk_orders PRIMARY KEY (id) )"));
+		assertTrue(successFiles.get(1).getAttribute(JsonToDDLProcessor.FIELD_DDL).endsWith("CONSTRAINT pk_invoices PRIMARY KEY (id) )"));
+	}
+
+	@Test
+	public void processor_should_not_share_cached_schema_across_colliding_names() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "readings");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_CACHE_SIZE, "10");
+		// "Aa" and "BB" have the same String hash code
+		testRunner.enqueue("{\"Aa\":1}");
+		testRunner.enqueue("{\"BB\":1}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 2);
+		List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		successFiles.get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "CREATE TABLE readings ( Aa INT ) ");
+		successFiles.get(1).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "CREATE TABLE readings ( BB INT ) ");
+		assertEquals(2L, testRunner.getCounterValue(JsonToDDLProcessor.COUNTER_CACHE_MISSES).longValue());
+	}
+
+	@Test
+	public void processor_should_route_malformed_json_to_failure() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "broken");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.enqueue("{\"id\":1,\"name\":");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_FAILURE, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_FAILURE).get(0).assertAttributeNotExists(JsonToDDLProcessor.FIELD_DDL);
+	}
+
+	@Test
+	public void processor_should_route_unreachable_schema_store_to_failure() throws Exception {
+		final DistributedMapCacheServer server = new DistributedMapCacheServer();
+		testRunner.addControllerService("server", server);
+		testRunner.setProperty(server, DistributedMapCacheServer.PORT, "0");
+		testRunner.enableControllerService(server);
+		final DistributedMapCacheClientService client = new DistributedMapCacheClientService();
+		testRunner.addControllerService("client", client);
+		testRunner.setProperty(client, DistributedMapCacheClientService.HOSTNAME, "localhost");
+		testRunner.setProperty(client, DistributedMapCacheClientService.PORT, String.valueOf(server.getPort()));
+		testRunner.enableControllerService(client);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "mysql");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_EVOLUTION, JsonToDDLProcessor.SCHEMA_EVOLUTION_ALTER);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_STORE, "client");
+		testRunner.disableControllerService(server);
+		testRunner.enqueue("{\"id\":1,\"name\":\"ab\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_FAILURE, 1);
+	}
+
+	@Test
+	public void processor_should_route_duplicate_field_names_to_failure() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "dupes");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_STRICT_DUPLICATE_DETECTION, "true");
+		testRunner.enqueue("{\"id\":1,\"name\":\"a\",\"id\":2}");
+		testRunner.enqueue("{\"id\":1,\"name\":\"a\"}");
+
+		testRunner.run(2);
+		testRunner.assertTransferCount(JsonToDDLProcessor.REL_FAILURE, 1);
+		testRunner.assertTransferCount(JsonToDDLProcessor.REL_SUCCESS, 1);
+	}
+
+	@Test
+	public void processor_should_infer_records_spanning_lines_in_parallel() {
+		// pretty printed records over several default sized chunks
+		final StringBuilder json = new StringBuilder();
+		for (int i = 0; json.length() < 3 * ParallelInferrer.DEFAULT_CHUNK_BYTES; i++) {
+			json.append("{\n  \"id\": ").append(i).append(",\n  \"note\": \"} ] \\\" {\",\n  \"tags\": [\n    \"a\",\n    \"b\"\n  ]");
+			if (i % 1000 == 0) {
+				json.append(",\n  \"amount\": 12.5");
+			}
+			json.append("\n}\n");
+		}
+
+		final TestRunner sequentialRunner = TestRunners.newTestRunner(JsonToDDLProcessor.class);
+		for (TestRunner runner : new TestRunner[] {testRunner, sequentialRunner}) {
+			runner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "lines");
+			runner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+			runner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+			runner.enqueue(json.toString());
+		}
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_PARALLELISM, "4");
+
+		testRunner.run();
+		sequentialRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		final String expected = sequentialRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0)
+				.getAttribute(JsonToDDLProcessor.FIELD_DDL);
+		assertTrue(expected.contains("amount"));
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, expected);
+	}
+
+	@Test
+	public void processor_should_nest_flattened_columns_in_json_schema() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_FLATTEN_DEPTH, "1");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_ARRAY_POLICY, JsonSchemaInferrer.ARRAYS_EXPLODE_INDEX);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_FORMAT, JsonSchemaFormat.NAME);
+		testRunner.enqueue("{\"id\":1,\"address\":{\"city\":\"Princeton\",\"geo\":{\"lat\":40}},\"tags\":[\"a\",\"bb\"]}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonSchemaFormat.ATTRIBUTE,
+				"{\"$schema\":\"http://json-schema.org/draft-07/schema#\",\"title\":\"people\",\"type\":\"object\",\"properties\":{"
+						+ "\"id\":{\"type\":\"integer\"},"
+						+ "\"address\":{\"type\":\"object\",\"properties\":{\"city\":{\"type\":\"string\"},\"geo\":{}},\"required\":[\"city\",\"geo\"]}},"
+						+ "\"required\":[\"id\",\"address\"]}");
+	}
+
+	@Test
+	public void processor_should_relax_not_null_of_known_tables() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "mysql");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_EVOLUTION, JsonToDDLProcessor.SCHEMA_EVOLUTION_ALTER);
+		testRunner.enqueue("{\"id\":1,\"name\":\"ab\",\"city\":\"x\"}");
+		// name is missing, city is null
+		testRunner.enqueue("{\"id\":2,\"city\":null}");
+		testRunner.enqueue("{\"id\":3,\"name\":null}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 3);
+		List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		successFiles.get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE people ( id INT NOT NULL, name VARCHAR(14) NOT NULL, city CHAR(1) NOT NULL ) ");
+		successFiles.get(1).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"ALTER TABLE people MODIFY COLUMN city CHAR(1) NULL;\nALTER TABLE people MODIFY COLUMN name VARCHAR(14) NULL");
+		successFiles.get(2).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL, "");
+	}
+
+	@Test
+	public void processor_should_count_widened_values_in_type_confidence() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "events");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		// a and d widen along their chain, b and c hold numbers as text
+		testRunner.enqueue("{\"a\":1,\"b\":1,\"c\":\"x\",\"d\":\"2018-01-01\"}\n"
+				+ "{\"a\":12345678901,\"b\":\"abc\",\"c\":\"xyz\",\"d\":\"2018-01-01T10:00:00\"}\n"
+				+ "{\"a\":2,\"b\":3,\"c\":4,\"d\":\"2018-01-02\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(
+				JsonToDDLProcessor.FIELD_TYPE_CONFIDENCE, "a=1.000,b=0.333,c=0.667,d=1.000");
+	}
+
+	@Test
+	public void processor_should_count_fingerprint_bytes_apart_from_inference() {
+		final String json = "{\"id\":1,\"name\":\"ab\"}";
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "people");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_SCHEMA_CACHE_SIZE, "10");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_METRICS_ATTRIBUTE, "true");
+		testRunner.enqueue(json);
+		testRunner.enqueue(json);
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 2);
+		// only the miss is inferred, both are fingerprinted
+		assertEquals(json.length(), testRunner.getCounterValue(InferenceMetrics.COUNTER_BYTES_READ).longValue());
+		assertEquals(2L * json.length(), testRunner.getCounterValue(InferenceMetrics.COUNTER_FINGERPRINT_BYTES).longValue());
+		assertEquals(1L, testRunner.getCounterValue(InferenceMetrics.COUNTER_RECORDS_SCANNED).longValue());
+		assertEquals(2L, testRunner.getCounterValue(InferenceMetrics.COUNTER_COLUMNS_EMITTED).longValue());
+
+		final List<MockFlowFile> successFiles = testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS);
+		final String miss = successFiles.get(0).getAttribute(JsonToDDLProcessor.FIELD_METRICS);
+		final String hit = successFiles.get(1).getAttribute(JsonToDDLProcessor.FIELD_METRICS);
+		assertTrue(miss.startsWith("bytesRead=" + json.length() + ",recordsScanned=1,columnsEmitted=2,fingerprintBytes=" + json.length() + ","));
+		assertTrue(miss.contains(",cacheHit=false,"));
+		assertTrue(hit.startsWith("bytesRead=0,recordsScanned=0,columnsEmitted=0,fingerprintBytes=" + json.length() + ","));
+		assertTrue(hit.contains(",cacheHit=true,"));
+	}
+
+	@Test
+	public void nested_type_merge_should_be_symmetric() {
+		final NestedType structIntoMap = struct(1);
+		structIntoMap.merge(struct(NestedType.MAX_STRUCT_FIELDS + 1));
+		final NestedType mapIntoStruct = struct(NestedType.MAX_STRUCT_FIELDS + 1);
+		mapIntoStruct.merge(struct(1));
+		assertEquals(NestedType.MAP, structIntoMap.getKind());
+		assertEquals(NestedType.MAP, mapIntoStruct.getKind());
+		assertEquals(ColumnState.INT, structIntoMap.getElement().getScalarType());
+		assertEquals(ColumnState.INT, mapIntoStruct.getElement().getScalarType());
+
+		// the merged tree does not share nodes with the tree merged into it
+		final NestedType source = struct(1);
+		final NestedType merged = new NestedType();
+		merged.merge(source);
+		merged.field("f0", new int[] {1}).observe(ColumnState.VARCHAR, 5);
+		assertEquals(ColumnState.INT, source.getFields().get("f0").getScalarType());
+	}
+
+	private static NestedType struct(int fields) {
+		final NestedType struct = new NestedType();
+		final int[] budget = {NestedType.MAX_NODES};
+		struct.begin(NestedType.STRUCT);
+		for (int i = 0; i < fields; i++) {
+			struct.field("f" + i, budget).observe(ColumnState.INT, 1);
+		}
+		return struct;
+	}
+
+	@Test
+	public void processor_should_infer_precise_numeric_types_of_numeric_strings() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "nums");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_NUMERIC_TYPES, JsonToDDLProcessor.NUMERIC_TYPES_PRECISE);
+		// leading zeros are codes, not numbers
+		testRunner.enqueue("{\"a\":\"1\",\"b\":\"40000\",\"c\":\"12345678901\",\"d\":\"-12.25\",\"e\":\"1e10\","
+				+ "\"f\":\"123456789012345678901234567890\",\"g\":\"007\"}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE nums ( a SMALLINT, b INT, c BIGINT, d DECIMAL(4,2), e DOUBLE, f DECIMAL(30,0), g VARCHAR(15) ) ");
+	}
+
+	@Test
+	public void processor_should_size_strings_joined_with_json_values() {
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_NAME, "docs");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_TABLE_TYPE, "hive");
+		testRunner.setProperty(JsonToDDLProcessor.FIELD_INFERENCE_MODE, JsonToDDLProcessor.MODE_ALL_RECORDS);
+		// the object is 37 characters of JSON, the column holds it as text next to the string
+		testRunner.enqueue("{\"v\":\"ab\"}\n{\"v\":{\"k\":\"a value of thirty characters.\"}}");
+
+		testRunner.run();
+		testRunner.assertAllFlowFilesTransferred(JsonToDDLProcessor.REL_SUCCESS, 1);
+		testRunner.getFlowFilesForRelationship(JsonToDDLProcessor.REL_SUCCESS).get(0).assertAttributeEquals(JsonToDDLProcessor.FIELD_DDL,
+				"CREATE TABLE docs ( v VARCHAR(49) NOT NULL ) ");
+	}
 
-}
\ No newline at end of file
+}